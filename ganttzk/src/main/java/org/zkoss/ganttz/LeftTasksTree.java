@@ -329,7 +329,7 @@ public class LeftTasksTree extends HtmlMacroComponent {
 
     private FilterAndParentExpandedPredicates predicate;
 
-    private final List<Task> visibleTasks = new ArrayList<Task>();
+    private final Set<Task> visibleTasks = new HashSet<Task>();
 
     private Planner planner;
 
@@ -408,7 +408,7 @@ public class LeftTasksTree extends HtmlMacroComponent {
         }
     }
 
-    private void removeTaskAndAllChildren(List<Task> visibleTasks, Task task) {
+    private void removeTaskAndAllChildren(Set<Task> visibleTasks, Task task) {
         visibleTasks.remove(task);
 
         if (task.isContainer()) {
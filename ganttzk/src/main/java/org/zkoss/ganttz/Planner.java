@@ -941,11 +941,7 @@ public class Planner extends HtmlMacroComponent  {
             org.zkoss.ganttz.data.Task task) {
         TaskList taskList = getTaskList();
         if (taskList != null) {
-            for (TaskComponent each : taskList.getTaskComponents()) {
-                if (each.getTask().equals(task)) {
-                    return each;
-                }
-            }
+            return taskList.find(task);
         }
 
         return null;
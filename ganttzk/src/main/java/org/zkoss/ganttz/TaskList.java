@@ -158,9 +158,18 @@ public class TaskList extends XulElement implements AfterCompose {
         reload(true);
     }
 
+    /**
+     * @return the {@link TaskComponent} shown for the task or
+     *         <code>null</code> if it's not shown
+     */
     public TaskComponent find(Task task) {
-        List<TaskComponent> taskComponents = getTaskComponents();
-        for (TaskComponent taskComponent : taskComponents) {
+        TaskComponent published = taskComponentByTask != null ? taskComponentByTask
+                .get(task) : null;
+        if (published != null && isShown(published)) {
+            return published;
+        }
+        // the published component could have been replaced by another one
+        for (TaskComponent taskComponent : getTaskComponents()) {
             if (taskComponent.getTask().equals(task)) {
                 return taskComponent;
             }
@@ -168,6 +177,11 @@ public class TaskList extends XulElement implements AfterCompose {
         return null;
     }
 
+    private boolean isShown(TaskComponent taskComponent) {
+        TaskRow row = taskComponent.getRow();
+        return row != null && row.getParent() == this;
+    }
+
     private void addListenerForTaskComponentEditForm(
             final TaskComponent taskComponent) {
         if (doubleClickCommand == null) {
@@ -334,11 +348,9 @@ public class TaskList extends XulElement implements AfterCompose {
 
     public void remove(Task task) {
         currentTotalTasks.remove(task);
-        for (TaskComponent taskComponent : getTaskComponents()) {
-            if (taskComponent.getTask().equals(task)) {
-                taskComponent.remove();
-                return;
-            }
+        TaskComponent taskComponent = find(task);
+        if (taskComponent != null) {
+            taskComponent.remove();
         }
     }
 
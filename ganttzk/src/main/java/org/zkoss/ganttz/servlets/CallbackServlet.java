@@ -21,16 +21,19 @@
 package org.zkoss.ganttz.servlets;
 
 import java.io.IOException;
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
 import java.lang.ref.WeakReference;
-import java.util.ArrayList;
-import java.util.List;
-import java.util.Map.Entry;
+import java.util.Queue;
 import java.util.Random;
 import java.util.Timer;
 import java.util.TimerTask;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.servlet.ServletConfig;
 import javax.servlet.ServletException;
@@ -38,6 +41,8 @@ import javax.servlet.http.HttpServletRequest;
 import javax.servlet.http.HttpServletResponse;
 
 import org.apache.commons.lang.Validate;
+import org.apache.commons.logging.Log;
+import org.apache.commons.logging.LogFactory;
 import org.zkoss.web.servlet.http.HttpServlet;
 
 /**
@@ -47,16 +52,35 @@ import org.zkoss.web.servlet.http.HttpServlet;
  */
 public class CallbackServlet extends HttpServlet {
 
+    private static final Log LOG = LogFactory.getLog(CallbackServlet.class);
+
     private static final String MAPPING = "/callback/";
 
     private static final long CLEANING_PERIOD_MILLIS = 1000 * 60 * 1; // one
                                                                       // minute
     // minutes
 
-    private static Random random = new Random();
+    /**
+     * When there are more handlers registered the oldest ones are discarded
+     */
+    private static final int MAX_HANDLERS = 10000;
+
+    private static final Random random = new Random();
+
+    private static final AtomicLong counter = new AtomicLong();
 
     private static ConcurrentMap<String, IHandler> handlersCallbacks = new ConcurrentHashMap<String, IHandler>();
 
+    /**
+     * The keys of the handlers with expiration time in registration order. As
+     * all of them have the same duration, the expired ones are at the head.
+     */
+    private static final Queue<String> expiringKeys = new ConcurrentLinkedQueue<String>();
+
+    private static final AtomicInteger registeredHandlers = new AtomicInteger();
+
+    private static final ReferenceQueue<IServletRequestHandler> noLongerReferenced = new ReferenceQueue<IServletRequestHandler>();
+
     private static Timer cleaningTimer = new Timer(true);
 
     public interface IServletRequestHandler {
@@ -68,13 +92,13 @@ public class CallbackServlet extends HttpServlet {
     public enum DisposalMode {
         WHEN_NO_LONGER_REFERENCED {
             @Override
-            public IHandler create(IServletRequestHandler handler) {
-                return new WeakReferencedHandler(handler);
+            public IHandler create(String key, IServletRequestHandler handler) {
+                return new WeakReferencedHandler(key, handler);
             }
         },
         AFTER_TEN_MINUTES {
             @Override
-            public IHandler create(IServletRequestHandler handler) {
+            public IHandler create(String key, IServletRequestHandler handler) {
                 return new BasedOnExpirationTimeHandler(handler,
                         tenMinutesInMillis);
             }
@@ -83,7 +107,7 @@ public class CallbackServlet extends HttpServlet {
         private static final long tenMinutesInMillis = TimeUnit.MILLISECONDS
                 .convert(10, TimeUnit.MINUTES);
 
-        public abstract IHandler create(
+        public abstract IHandler create(String key,
                 IServletRequestHandler handler);
     }
 
@@ -122,10 +146,10 @@ public class CallbackServlet extends HttpServlet {
 
     private static class WeakReferencedHandler implements IHandler {
 
-        private final WeakReference<IServletRequestHandler> handler;
+        private final KeyedReference handler;
 
-        WeakReferencedHandler(IServletRequestHandler handler) {
-            this.handler = new WeakReference<IServletRequestHandler>(handler);
+        WeakReferencedHandler(String key, IServletRequestHandler handler) {
+            this.handler = new KeyedReference(key, handler);
         }
 
         @Override
@@ -140,6 +164,22 @@ public class CallbackServlet extends HttpServlet {
 
     }
 
+    /**
+     * It's enqueued in {@link CallbackServlet#noLongerReferenced} when the
+     * handler is collected, so its key can be removed without scanning
+     */
+    private static class KeyedReference extends
+            WeakReference<IServletRequestHandler> {
+
+        private final String key;
+
+        KeyedReference(String key, IServletRequestHandler handler) {
+            super(handler, noLongerReferenced);
+            this.key = key;
+        }
+
+    }
+
     public static String registerAndCreateURLFor(HttpServletRequest request,
             IServletRequestHandler handler) {
         return registerAndCreateURLFor(request, handler,
@@ -161,24 +201,31 @@ public class CallbackServlet extends HttpServlet {
             IServletRequestHandler handler, boolean withContextPath,
             DisposalMode disposalMode) {
         Validate.notNull(disposalMode);
-        // theoretically could be an infinite loop, could be improved.
-        String generatedKey = "";
-        IHandler toBeRegistered = disposalMode.create(handler);
-        do {
-            generatedKey = generateKey();
-        } while (handlersCallbacks.putIfAbsent(generatedKey, toBeRegistered) != null);
+        String generatedKey = generateKey();
+        IHandler toBeRegistered = disposalMode.create(generatedKey, handler);
+        handlersCallbacks.put(generatedKey, toBeRegistered);
+        if (toBeRegistered instanceof BasedOnExpirationTimeHandler) {
+            expiringKeys.add(generatedKey);
+        }
+        if (registeredHandlers.incrementAndGet() > MAX_HANDLERS) {
+            discardOldest();
+        }
         return buildURLFromKey(request, generatedKey, withContextPath);
     }
 
-    private static synchronized String buildURLFromKey(
-            HttpServletRequest request, String generatedKey,
-            boolean withContextPath) {
+    private static String buildURLFromKey(HttpServletRequest request,
+            String generatedKey, boolean withContextPath) {
         String contextPath = withContextPath ? request.getContextPath() : "";
         return contextPath + MAPPING + generatedKey;
     }
 
+    /**
+     * The counter makes the keys unique without checking the registered ones
+     * and the random part keeps them hard to guess
+     */
     private static String generateKey() {
-        return "" + random.nextInt(Integer.MAX_VALUE);
+        return Long.toString(counter.incrementAndGet(), Character.MAX_RADIX)
+                + "-" + random.nextInt(Integer.MAX_VALUE);
     }
 
     private static String getId(String pathInfo) {
@@ -188,26 +235,59 @@ public class CallbackServlet extends HttpServlet {
         return pathInfo;
     }
 
-    private static void cleanExpired() {
-        remove(findExpired());
+    /**
+     * @return the number of handlers currently registered
+     */
+    public static int getRegisteredHandlersCount() {
+        return registeredHandlers.get();
     }
 
-    private static void remove(List<String> expired) {
-        for (String key : expired) {
-            handlersCallbacks.remove(key);
+    private static void remove(String key) {
+        if (handlersCallbacks.remove(key) != null) {
+            registeredHandlers.decrementAndGet();
         }
     }
 
-    private static List<String> findExpired() {
-        ArrayList<Entry<String, IHandler>> handlersList = new ArrayList<Entry<String, IHandler>>(
-                handlersCallbacks.entrySet());
-        List<String> expired = new ArrayList<String>();
-        for (Entry<String, IHandler> entry : handlersList) {
-            if (entry.getValue().hasExpired()) {
-                expired.add(entry.getKey());
+    /**
+     * The handlers only referenced weakly are in use, so just the ones with
+     * expiration time are discarded
+     */
+    private static void discardOldest() {
+        synchronized (expiringKeys) {
+            while (registeredHandlers.get() > MAX_HANDLERS) {
+                String oldest = expiringKeys.poll();
+                if (oldest == null) {
+                    return;
+                }
+                remove(oldest);
             }
         }
-        return expired;
+    }
+
+    /**
+     * Only the handlers collected since the last time and the expired ones at
+     * the head of {@link #expiringKeys} are visited
+     */
+    private static void cleanExpired() {
+        Reference<? extends IServletRequestHandler> collected;
+        while ((collected = noLongerReferenced.poll()) != null) {
+            remove(((KeyedReference) collected).key);
+        }
+        synchronized (expiringKeys) {
+            String key;
+            while ((key = expiringKeys.peek()) != null) {
+                IHandler handler = handlersCallbacks.get(key);
+                if (handler != null && !handler.hasExpired()) {
+                    break;
+                }
+                expiringKeys.poll();
+                remove(key);
+            }
+        }
+        if (LOG.isDebugEnabled()) {
+            LOG.debug("callback handlers registered: "
+                    + getRegisteredHandlersCount());
+        }
     }
 
     @Override
@@ -21,12 +21,26 @@
 package org.zkoss.ganttz.util;
 
 import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
 import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CancellationException;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.FutureTask;
 import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.apache.commons.lang.Validate;
 import org.apache.commons.logging.Log;
@@ -148,8 +162,60 @@ public class LongOperationFeedback {
         public void doOperation(IDesktopUpdatesEmitter<T> desktopUpdateEmitter);
     }
 
-    private static final ExecutorService executor = Executors
-            .newCachedThreadPool();
+    private static final long IDLE_THREAD_SECONDS = 60;
+
+    /**
+     * The background operations are run by a bounded number of threads, so a
+     * few heavy operations can't exhaust the server
+     */
+    private static final ExecutorService executor = timingOut(new ThreadPoolExecutor(
+            Math.max(2, Runtime.getRuntime().availableProcessors()),
+            Math.max(2, Runtime.getRuntime().availableProcessors()),
+            IDLE_THREAD_SECONDS, TimeUnit.SECONDS,
+            new LinkedBlockingQueue<Runnable>(),
+            daemonThreads("background-operation")));
+
+    /**
+     * It delivers the updates to the desktops, its tasks are mostly waiting
+     * for them
+     */
+    private static final ExecutorService updatesExecutor = Executors
+            .newCachedThreadPool(daemonThreads("desktop-updates"));
+
+    private static final ScheduledExecutorService scheduler = timingOut(new ScheduledThreadPoolExecutor(
+            1, daemonThreads("background-operation-scheduler")));
+
+    /**
+     * The pools are static, so they outlive the web application if it's
+     * redeployed. Their threads are daemon ones and they end when they have
+     * been idle for a while, so they don't keep the old application alive
+     */
+    private static ThreadFactory daemonThreads(final String prefix) {
+        return new ThreadFactory() {
+
+            private final AtomicInteger created = new AtomicInteger();
+
+            @Override
+            public Thread newThread(Runnable runnable) {
+                Thread result = new Thread(runnable, prefix + "-"
+                        + created.incrementAndGet());
+                result.setDaemon(true);
+                return result;
+            }
+        };
+    }
+
+    private static <T extends ThreadPoolExecutor> T timingOut(T pool) {
+        pool.setKeepAliveTime(IDLE_THREAD_SECONDS, TimeUnit.SECONDS);
+        pool.allowCoreThreadTimeOut(true);
+        return pool;
+    }
+
+    private static final int MAX_RUNNING_PER_DESKTOP = 2;
+
+    private static final Map<Desktop, Set<Future<?>>> runningByDesktop = new HashMap<Desktop, Set<Future<?>>>();
+
+    private static final Map<Desktop, Queue<Future<?>>> waitingByDesktop = new HashMap<Desktop, Queue<Future<?>>>();
 
     public static <T> IDesktopUpdatesEmitter<T> doNothingEmitter() {
         return new IDesktopUpdatesEmitter<T>() {
@@ -180,25 +246,146 @@ public class LongOperationFeedback {
      * Executes a long operation. The background operation can send
      * <code>T</code> objects that can update desktop state. A
      * {@link IDesktopUpdatesEmitter} that handle these objects is necessary.
-     * Trying to update the components in any other way would fail.
+     * Trying to update the components in any other way would fail. <br />
+     *
+     * At most {@link #MAX_RUNNING_PER_DESKTOP} operations can be running for
+     * the same desktop. The rest wait until one of them finishes.
+     *
+     * @see #cancelProgressive(Desktop)
      */
     public static <T> void progressive(final Desktop desktop,
             final IBackGroundOperation<T> operation,
             final IDesktopUpdatesEmitter<T> emitter) {
-        desktop.enableServerPush(true);
-        executor.execute(new Runnable() {
+        FutureTask<Void> task = new FutureTask<Void>(new Runnable() {
             public void run() {
                 try {
                     IBackGroundOperation<T> operationWithAsyncUpates = withAsyncUpates(
                             operation, desktop);
                     operationWithAsyncUpates.doOperation(emitter);
+                } catch (CancellationException e) {
+                    LOG.info("background operation cancelled");
                 } catch (Exception e) {
                     LOG.error("error executing background operation", e);
+                }
+            }
+        }, null) {
+
+            @Override
+            public void run() {
+                // it's called even if the task has been cancelled before
+                // starting, and it returns once the operation has stopped
+                try {
+                    super.run();
                 } finally {
-                    desktop.enableServerPush(false);
+                    finished(desktop, this);
                 }
             }
-        });
+        };
+        desktop.enableServerPush(true);
+        if (register(desktop, task)) {
+            executor.execute(task);
+        } else {
+            LOG.info("background operation waiting for others of the desktop "
+                    + desktop.getId() + " to finish");
+        }
+    }
+
+    /**
+     * Like {@link #progressive(Desktop, IBackGroundOperation)} but the
+     * operation is started after the delay specified, without taking a thread
+     * meanwhile
+     */
+    public static void progressiveAfter(final Desktop desktop, long delay,
+            TimeUnit unit, final IBackGroundOperation<IDesktopUpdate> operation) {
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (desktop.isAlive()) {
+                    progressive(desktop, operation);
+                }
+            }
+        }, delay, unit);
+    }
+
+    /**
+     * Cancels the background operations of the desktop. The ones waiting are
+     * not started. A running operation is stopped the next time it sends an
+     * update or if it checks the interruption of its thread. The updates it
+     * sends afterwards, for example from a <code>finally</code> block, are
+     * still shown.
+     *
+     * @return <code>true</code> if there was some operation to cancel
+     */
+    public static boolean cancelProgressive(Desktop desktop) {
+        List<Future<?>> toCancel = new ArrayList<Future<?>>();
+        synchronized (runningByDesktop) {
+            Queue<Future<?>> waiting = waitingByDesktop.remove(desktop);
+            if (waiting != null) {
+                toCancel.addAll(waiting);
+            }
+            Set<Future<?>> running = runningByDesktop.get(desktop);
+            if (running != null) {
+                toCancel.addAll(running);
+            }
+        }
+        boolean result = false;
+        for (Future<?> each : toCancel) {
+            result = each.cancel(true) || result;
+        }
+        return result;
+    }
+
+    /**
+     * @return <code>true</code> if the task can be started now, otherwise it
+     *         waits until some running one finishes
+     */
+    private static boolean register(Desktop desktop, Future<?> task) {
+        synchronized (runningByDesktop) {
+            Set<Future<?>> running = runningByDesktop.get(desktop);
+            if (running == null) {
+                running = new HashSet<Future<?>>();
+                runningByDesktop.put(desktop, running);
+            }
+            if (running.size() < MAX_RUNNING_PER_DESKTOP) {
+                running.add(task);
+                return true;
+            }
+            Queue<Future<?>> waiting = waitingByDesktop.get(desktop);
+            if (waiting == null) {
+                waiting = new LinkedList<Future<?>>();
+                waitingByDesktop.put(desktop, waiting);
+            }
+            waiting.offer(task);
+            return false;
+        }
+    }
+
+    private static void finished(Desktop desktop, FutureTask<?> task) {
+        Runnable next = null;
+        boolean noneLeft = false;
+        synchronized (runningByDesktop) {
+            Set<Future<?>> running = runningByDesktop.get(desktop);
+            if (running != null) {
+                running.remove(task);
+            }
+            Queue<Future<?>> waiting = waitingByDesktop.get(desktop);
+            if (running != null && waiting != null && !waiting.isEmpty()) {
+                Future<?> first = waiting.poll();
+                if (waiting.isEmpty()) {
+                    waitingByDesktop.remove(desktop);
+                }
+                running.add(first);
+                next = (Runnable) first;
+            } else if (running == null || running.isEmpty()) {
+                runningByDesktop.remove(desktop);
+                noneLeft = true;
+            }
+        }
+        if (next != null) {
+            executor.execute(next);
+        } else if (noneLeft && desktop.isAlive()) {
+            desktop.enableServerPush(false);
+        }
     }
 
     private static <T> IBackGroundOperation<T> withAsyncUpates(
@@ -211,7 +398,8 @@ public class LongOperationFeedback {
                     IDesktopUpdatesEmitter<T> originalEmitter) {
                 NotBlockingDesktopUpdates<T> notBlockingDesktopUpdates = new NotBlockingDesktopUpdates<T>(
                         desktop, originalEmitter);
-                Future<?> future = executor.submit(notBlockingDesktopUpdates);
+                Future<?> future = updatesExecutor
+                        .submit(notBlockingDesktopUpdates);
                 try {
                     backgroundOperation.doOperation(notBlockingDesktopUpdates);
                 } finally {
@@ -221,10 +409,17 @@ public class LongOperationFeedback {
             }
 
             private void waitUntilShowingAllUpdates(Future<?> future) {
+                // the thread is interrupted if the operation was cancelled,
+                // but the updates already sent must be shown anyway
+                boolean interrupted = Thread.interrupted();
                 try {
                     future.get();
                 } catch (Exception e) {
                     throw new RuntimeException(e);
+                } finally {
+                    if (interrupted) {
+                        Thread.currentThread().interrupt();
+                    }
                 }
             }
         };
@@ -236,6 +431,7 @@ public class LongOperationFeedback {
         private BlockingQueue<EndOrValue<T>> queue = new LinkedBlockingQueue<EndOrValue<T>>();
         private final IDesktopUpdatesEmitter<T> original;
         private final Desktop desktop;
+        private boolean cancelled = false;
 
         NotBlockingDesktopUpdates(Desktop desktop,
                 IDesktopUpdatesEmitter<T> original) {
@@ -246,6 +442,11 @@ public class LongOperationFeedback {
         @Override
         public void doUpdate(T value) {
             queue.add(EndOrValue.value(value));
+            if (!cancelled && Thread.currentThread().isInterrupted()) {
+                // only once, so the updates done while cleaning up are shown
+                cancelled = true;
+                throw new CancellationException();
+            }
         }
 
         void finish() {
@@ -267,6 +468,7 @@ public class LongOperationFeedback {
                     return;
                 }
                 if (!desktop.isAlive() || !desktop.isServerPushEnabled()) {
+                    cancelProgressive(desktop);
                     return;
                 }
                 try {
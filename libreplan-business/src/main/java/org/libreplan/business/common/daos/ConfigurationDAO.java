@@ -41,13 +41,32 @@ import org.springframework.transaction.annotation.Transactional;
 public class ConfigurationDAO extends GenericDAOHibernate<Configuration, Long>
         implements IConfigurationDAO {
 
+    /**
+     * There is only one {@link Configuration}, once its id is known it's
+     * retrieved by id. So it's taken from the session or from the second
+     * level cache instead of querying the database each time
+     */
+    private volatile Long configurationId;
+
     @Override
     public Configuration getConfiguration() {
+        Long id = configurationId;
+        if (id != null) {
+            Configuration result = (Configuration) getSession().get(
+                    Configuration.class, id);
+            if (result != null) {
+                return result;
+            }
+        }
         List<Configuration> list = list(Configuration.class);
         if (list.isEmpty()) {
             return null;
         }
-        return list.get(0);
+        Configuration result = list.get(0);
+        if (!result.isNewObject()) {
+            configurationId = result.getId();
+        }
+        return result;
     }
 
     @Override
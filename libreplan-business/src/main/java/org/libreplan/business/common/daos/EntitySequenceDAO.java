@@ -23,22 +23,27 @@ package org.libreplan.business.common.daos;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ConcurrentMap;
 
 import org.apache.commons.lang.Validate;
 import org.hibernate.NonUniqueResultException;
 import org.hibernate.criterion.Restrictions;
 import org.libreplan.business.common.IAdHocTransactionService;
+import org.libreplan.business.common.IOnTransaction;
 import org.libreplan.business.common.entities.EntityNameEnum;
 import org.libreplan.business.common.entities.EntitySequence;
 import org.libreplan.business.common.exceptions.InstanceNotFoundException;
+import org.libreplan.business.common.exceptions.ValidationException;
 import org.libreplan.business.i18n.I18nHelper;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.Scope;
 import org.springframework.orm.hibernate4.HibernateOptimisticLockingFailureException;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 
 /**
  * DAO for {@link EntitySequence}.
@@ -49,9 +54,17 @@ import org.springframework.transaction.annotation.Transactional;
 public class EntitySequenceDAO extends
         GenericDAOHibernate<EntitySequence, Long> implements IEntitySequenceDAO {
 
+    /**
+     * Number of codes reserved at once by
+     * {@link #getNextEntityCode(EntityNameEnum)}
+     */
+    private static final int CODES_PER_RESERVATION = 20;
+
     @Autowired
     private IAdHocTransactionService transactionService;
 
+    private final ConcurrentMap<EntityNameEnum, Queue<String>> reservedCodes = new ConcurrentHashMap<EntityNameEnum, Queue<String>>();
+
     @Override
     public List<EntitySequence> getAll() {
         return list(EntitySequence.class);
@@ -101,9 +114,92 @@ public class EntitySequenceDAO extends
     }
 
     @Override
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
+    public void save(EntitySequence entitySequence)
+            throws ValidationException {
+        super.save(entitySequence);
+        // the active sequence could have changed
+        reservedCodes.remove(entitySequence.getEntityName());
+    }
+
+    /**
+     * The codes are served from the ones reserved in memory. When they run
+     * out, the next {@link #CODES_PER_RESERVATION} values of the active
+     * sequence are reserved in another transaction, discarding the ones
+     * already used as codes.
+     */
+    @Override
     public String getNextEntityCode(EntityNameEnum entityName) {
-        return getNextEntityCodeWithoutTransaction(entityName);
+        Queue<String> codes = getReservedCodes(entityName);
+        for (int i = 0; i < 5; i++) {
+            String code = codes.poll();
+            if (code != null) {
+                return code;
+            }
+            List<String> reserved = reserveCodes(entityName);
+            if (reserved == null) {
+                return null;
+            }
+            codes.addAll(reserved);
+        }
+        return null;
+    }
+
+    private Queue<String> getReservedCodes(EntityNameEnum entityName) {
+        Queue<String> result = reservedCodes.get(entityName);
+        if (result == null) {
+            Queue<String> created = new ConcurrentLinkedQueue<String>();
+            result = reservedCodes.putIfAbsent(entityName, created);
+            if (result == null) {
+                result = created;
+            }
+        }
+        return result;
+    }
+
+    private List<String> reserveCodes(final EntityNameEnum entityName) {
+        for (int i = 0; i < 5; i++) {
+            try {
+                return transactionService
+                        .runOnAnotherTransaction(new IOnTransaction<List<String>>() {
+
+                            @Override
+                            public List<String> execute() {
+                                return reserveCodesWithoutTransaction(entityName);
+                            }
+                        });
+            } catch (HibernateOptimisticLockingFailureException e) {
+                // Do nothing (optimistic approach 5 attempts)
+            }
+        }
+        return null;
+    }
+
+    private List<String> reserveCodesWithoutTransaction(
+            EntityNameEnum entityName) {
+        EntitySequence entitySequence;
+        try {
+            entitySequence = getActiveEntitySequence(entityName);
+        } catch (InstanceNotFoundException e) {
+            return null;
+        } catch (NonUniqueResultException e) {
+            return null;
+        }
+        List<String> codes = new ArrayList<String>();
+        for (int i = 0; i < CODES_PER_RESERVATION; i++) {
+            entitySequence.incrementLastValue();
+            codes.add(entitySequence.getCode());
+        }
+        super.save(entitySequence);
+
+        Set<String> used = entityName.getIntegrationEntityDAO()
+                .findExistingCodes(codes);
+        List<String> result = new ArrayList<String>();
+        for (String each : codes) {
+            if (!used.contains(each.toLowerCase())) {
+                result.add(each);
+            }
+        }
+        return result;
     }
 
     public String getNextEntityCodeWithoutTransaction(EntityNameEnum entityName) {
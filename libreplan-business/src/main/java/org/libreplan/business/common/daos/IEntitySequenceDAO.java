@@ -50,8 +50,18 @@ public interface IEntitySequenceDAO extends IGenericDAO<EntitySequence, Long> {
     EntitySequence getActiveEntitySequence(EntityNameEnum entityName)
             throws InstanceNotFoundException, NonUniqueResultException;
 
+    /**
+     * It returns a code of the active sequence for <code>entityName</code>
+     * not used yet, or <code>null</code> if it couldn't be obtained. The codes
+     * are reserved in blocks on their own transaction, so the ones not
+     * handed out before the application is stopped are skipped.
+     */
     String getNextEntityCode(EntityNameEnum entityName);
 
+    /**
+     * Like {@link #getNextEntityCode(EntityNameEnum)} but the sequence is
+     * updated in the current transaction, one code at a time.
+     */
     String getNextEntityCodeWithoutTransaction(EntityNameEnum entityName);
 
     boolean existOtherActiveSequenceByEntityNameForNewObject(
@@ -21,7 +21,9 @@
 
 package org.libreplan.business.common.daos;
 
+import java.util.Collection;
 import java.util.List;
+import java.util.Set;
 
 import org.libreplan.business.common.IntegrationEntity;
 import org.libreplan.business.common.exceptions.InstanceNotFoundException;
@@ -63,6 +65,12 @@ public interface IIntegrationEntityDAO<E extends IntegrationEntity>
 
     public E findExistingEntityByCode(String code);
 
+    /**
+     * It returns, in lower case, the <code>codes</code> already used by some
+     * entity. The comparison ignores case like {@link #findByCode(String)}.
+     */
+    public Set<String> findExistingCodes(Collection<String> codes);
+
     /**
      * It returns all entities ordered by ascending code.
      */
@@ -21,7 +21,11 @@
 
 package org.libreplan.business.common.daos;
 
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 
 import org.apache.commons.lang.StringUtils;
 import org.hibernate.criterion.Order;
@@ -100,6 +104,26 @@ public class IntegrationEntityDAO<E extends IntegrationEntity>
 
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public Set<String> findExistingCodes(Collection<String> codes) {
+        Set<String> result = new HashSet<String>();
+        if (codes.isEmpty()) {
+            return result;
+        }
+        List<String> lowerCaseCodes = new ArrayList<String>();
+        for (String each : codes) {
+            lowerCaseCodes.add(each.trim().toLowerCase());
+        }
+        result.addAll(getSession()
+                .createQuery(
+                        "select lower(e.code) from "
+                                + getEntityClass().getName()
+                                + " e where lower(e.code) in (:codes)")
+                .setParameterList("codes", lowerCaseCodes).list());
+        return result;
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public List<E> findAll() {
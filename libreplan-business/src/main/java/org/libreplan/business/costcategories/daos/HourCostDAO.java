@@ -22,6 +22,9 @@
 package org.libreplan.business.costcategories.daos;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
 
 import org.hibernate.Query;
 import org.joda.time.LocalDate;
@@ -29,6 +32,8 @@ import org.libreplan.business.common.daos.IntegrationEntityDAO;
 import org.libreplan.business.common.exceptions.InstanceNotFoundException;
 import org.libreplan.business.costcategories.entities.CostCategory;
 import org.libreplan.business.costcategories.entities.HourCost;
+import org.libreplan.business.costcategories.entities.PriceCostIndex;
+import org.libreplan.business.costcategories.entities.PriceCostIndex.PriceCost;
 import org.libreplan.business.costcategories.entities.TypeOfWorkHours;
 import org.libreplan.business.resources.entities.Criterion;
 import org.libreplan.business.resources.entities.Resource;
@@ -47,6 +52,12 @@ import org.springframework.transaction.annotation.Transactional;
 public class HourCostDAO extends IntegrationEntityDAO<HourCost> implements
         IHourCostDAO {
 
+    private static final String PRICE_COSTS_QUERY = "SELECT rcca.resource.id, hc.type.id, "
+            + "rcca.initDate, rcca.endDate, hc.initDate, hc.endDate, "
+            + "hc.priceCost "
+            + "FROM ResourcesCostCategoryAssignment rcca, HourCost hc "
+            + "WHERE rcca.costCategory = hc.category ";
+
     @Override
     public void remove(Long id) throws InstanceNotFoundException {
         try {
@@ -94,4 +105,38 @@ public class HourCostDAO extends IntegrationEntityDAO<HourCost> implements
         return (BigDecimal) query.uniqueResult();
     }
 
-}
\ No newline at end of file
+    @Override
+    @Transactional(readOnly = true)
+    public PriceCostIndex getPriceCostIndexFor(
+            Collection<? extends Resource> resources) {
+        if (resources.isEmpty()) {
+            return PriceCostIndex.create(new ArrayList<PriceCost>());
+        }
+        Query query = getSession().createQuery(
+                PRICE_COSTS_QUERY + "AND rcca.resource IN (:resources)");
+        query.setParameterList("resources", resources);
+        return toIndex(query);
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public PriceCostIndex getPriceCostIndex() {
+        return toIndex(getSession().createQuery(PRICE_COSTS_QUERY));
+    }
+
+    @SuppressWarnings("unchecked")
+    private PriceCostIndex toIndex(Query query) {
+        List<PriceCost> prices = new ArrayList<PriceCost>();
+        for (Object[] each : (List<Object[]>) query.list()) {
+            PriceCost price = PriceCost.onBoth((Long) each[0],
+                    (Long) each[1], (LocalDate) each[2], (LocalDate) each[3],
+                    (LocalDate) each[4], (LocalDate) each[5],
+                    (BigDecimal) each[6]);
+            if (price != null) {
+                prices.add(price);
+            }
+        }
+        return PriceCostIndex.create(prices);
+    }
+
+}
@@ -22,12 +22,14 @@
 package org.libreplan.business.costcategories.daos;
 
 import java.math.BigDecimal;
+import java.util.Collection;
 
 import org.joda.time.LocalDate;
 import org.libreplan.business.common.daos.IIntegrationEntityDAO;
 import org.libreplan.business.common.exceptions.InstanceNotFoundException;
 import org.libreplan.business.costcategories.entities.CostCategory;
 import org.libreplan.business.costcategories.entities.HourCost;
+import org.libreplan.business.costcategories.entities.PriceCostIndex;
 import org.libreplan.business.costcategories.entities.ResourcesCostCategoryAssignment;
 import org.libreplan.business.costcategories.entities.TypeOfWorkHours;
 import org.libreplan.business.resources.entities.Resource;
@@ -62,4 +64,18 @@ public interface IHourCostDAO extends IIntegrationEntityDAO<HourCost> {
 
     public BigDecimal getPriceCostFromCriterionAndType(
             CostCategory category, TypeOfWorkHours type);
+
+    /**
+     * Retrieves at once the price costs of the resources specified, so
+     * {@link #getPriceCostFromResourceDateAndType(Resource, LocalDate, TypeOfWorkHours)}
+     * doesn't need to be called for each date and type
+     */
+    PriceCostIndex getPriceCostIndexFor(Collection<? extends Resource> resources);
+
+    /**
+     * Like {@link #getPriceCostIndexFor(Collection)} but for all the
+     * resources
+     */
+    PriceCostIndex getPriceCostIndex();
+
 }
@@ -0,0 +1,219 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2013 Igalia, S.L.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.costcategories.entities;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.Validate;
+import org.joda.time.LocalDate;
+import org.libreplan.business.resources.entities.Resource;
+
+/**
+ * Price costs that apply to each {@link Resource} by {@link TypeOfWorkHours},
+ * combining its {@link ResourcesCostCategoryAssignment cost category
+ * assignments} with the {@link HourCost hour costs} of these categories. <br />
+ *
+ * The intervals of each resource and type are kept sorted, so the price on a
+ * date is found with a binary search.
+ */
+public class PriceCostIndex {
+
+    /**
+     * Price valid from {@link #getStart()} to {@link #getEnd()}, both
+     * inclusive. The end can be <code>null</code>
+     */
+    public static class PriceCost {
+
+        /**
+         * @return the price valid on the days covered by both the assignment
+         *         and the hour cost, or <code>null</code> if they don't
+         *         overlap
+         */
+        public static PriceCost onBoth(Long resourceId, Long typeId,
+                LocalDate assignmentStart, LocalDate assignmentEnd,
+                LocalDate hourCostStart, LocalDate hourCostEnd,
+                BigDecimal price) {
+            LocalDate start = max(assignmentStart, hourCostStart);
+            LocalDate end = minEnd(assignmentEnd, hourCostEnd);
+            if (end != null && end.isBefore(start)) {
+                return null;
+            }
+            return new PriceCost(resourceId, typeId, start, end, price);
+        }
+
+        private static LocalDate max(LocalDate a, LocalDate b) {
+            return a.isAfter(b) ? a : b;
+        }
+
+        private static LocalDate minEnd(LocalDate a, LocalDate b) {
+            if (a == null) {
+                return b;
+            }
+            if (b == null) {
+                return a;
+            }
+            return a.isBefore(b) ? a : b;
+        }
+
+        private final Long resourceId;
+
+        private final Long typeId;
+
+        private final LocalDate start;
+
+        private final LocalDate end;
+
+        private final BigDecimal price;
+
+        private PriceCost(Long resourceId, Long typeId, LocalDate start,
+                LocalDate end, BigDecimal price) {
+            Validate.notNull(resourceId);
+            Validate.notNull(typeId);
+            Validate.notNull(start);
+            this.resourceId = resourceId;
+            this.typeId = typeId;
+            this.start = start;
+            this.end = end;
+            this.price = price;
+        }
+
+        public LocalDate getStart() {
+            return start;
+        }
+
+        public LocalDate getEnd() {
+            return end;
+        }
+
+        public BigDecimal getPrice() {
+            return price;
+        }
+
+        boolean includes(LocalDate date) {
+            return !date.isBefore(start) && (end == null || !date.isAfter(end));
+        }
+
+        private Key getKey() {
+            return new Key(resourceId, typeId);
+        }
+    }
+
+    private static class Key {
+
+        private final Long resourceId;
+
+        private final Long typeId;
+
+        Key(Long resourceId, Long typeId) {
+            this.resourceId = resourceId;
+            this.typeId = typeId;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (!(obj instanceof Key)) {
+                return false;
+            }
+            Key other = (Key) obj;
+            return resourceId.equals(other.resourceId)
+                    && typeId.equals(other.typeId);
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * resourceId.hashCode() + typeId.hashCode();
+        }
+    }
+
+    private static final Comparator<PriceCost> BY_START = new Comparator<PriceCost>() {
+
+        @Override
+        public int compare(PriceCost o1, PriceCost o2) {
+            return o1.getStart().compareTo(o2.getStart());
+        }
+    };
+
+    public static PriceCostIndex create(Collection<? extends PriceCost> prices) {
+        Map<Key, List<PriceCost>> byKey = new HashMap<Key, List<PriceCost>>();
+        for (PriceCost each : prices) {
+            List<PriceCost> list = byKey.get(each.getKey());
+            if (list == null) {
+                list = new ArrayList<PriceCost>();
+                byKey.put(each.getKey(), list);
+            }
+            list.add(each);
+        }
+        for (List<PriceCost> each : byKey.values()) {
+            Collections.sort(each, BY_START);
+        }
+        return new PriceCostIndex(byKey);
+    }
+
+    private final Map<Key, List<PriceCost>> pricesByResourceAndType;
+
+    private PriceCostIndex(Map<Key, List<PriceCost>> pricesByResourceAndType) {
+        this.pricesByResourceAndType = pricesByResourceAndType;
+    }
+
+    /**
+     * @return the price cost for the resource on the date for the type of
+     *         work hours, or <code>null</code> if it has no cost category
+     *         with a price for that type on that date
+     */
+    public BigDecimal getPriceCost(Resource resource, LocalDate date,
+            TypeOfWorkHours type) {
+        if (resource.getId() == null || type.getId() == null) {
+            return null;
+        }
+        List<PriceCost> prices = pricesByResourceAndType.get(new Key(resource
+                .getId(), type.getId()));
+        if (prices == null) {
+            return null;
+        }
+        int position = findLastStartingAtOrBefore(prices, date);
+        if (position < 0 || !prices.get(position).includes(date)) {
+            return null;
+        }
+        return prices.get(position).getPrice();
+    }
+
+    private static int findLastStartingAtOrBefore(List<PriceCost> prices,
+            LocalDate date) {
+        int start = 0;
+        int end = prices.size() - 1;
+        while (start <= end) {
+            int middle = start + (end - start) / 2;
+            if (prices.get(middle).getStart().compareTo(date) <= 0) {
+                start = middle + 1;
+            } else {
+                end = middle - 1;
+            }
+        }
+        return end;
+    }
+
+}
@@ -27,4 +27,11 @@ package org.libreplan.business.hibernate.notification;
 public interface IAutoUpdatedSnapshot<T> {
 
     T getValue();
+
+    /**
+     * @return <code>false</code> if the value is being recalculated because of
+     *         some changes, so {@link #getValue()} still returns the previous
+     *         one
+     */
+    boolean isUpToDate();
 }
@@ -59,6 +59,8 @@ class NotBlockingAutoUpdatedSnapshot<T> implements IAutoUpdatedSnapshot<T> {
         boolean hasBeenInitialized() {
             return true;
         }
+
+        abstract boolean isUpToDate();
     }
 
     private class NotLaunchState extends State {
@@ -78,6 +80,11 @@ class NotBlockingAutoUpdatedSnapshot<T> implements IAutoUpdatedSnapshot<T> {
             return false;
         }
 
+        @Override
+        boolean isUpToDate() {
+            return false;
+        }
+
     }
 
     private class NoOngoingCalculation extends State {
@@ -91,6 +98,11 @@ class NotBlockingAutoUpdatedSnapshot<T> implements IAutoUpdatedSnapshot<T> {
         T getValue() {
             return value;
         }
+
+        @Override
+        boolean isUpToDate() {
+            return true;
+        }
     }
 
     private class PreviousValueAndOngoingCalculation extends State {
@@ -120,6 +132,12 @@ class NotBlockingAutoUpdatedSnapshot<T> implements IAutoUpdatedSnapshot<T> {
             return previousValue.getValue();
         }
 
+        @Override
+        boolean isUpToDate() {
+            return ongoingCalculation.isDone()
+                    && !ongoingCalculation.isCancelled();
+        }
+
         private T getValueFromFuture() {
             try {
                 return ongoingCalculation.get();
@@ -165,6 +183,11 @@ class NotBlockingAutoUpdatedSnapshot<T> implements IAutoUpdatedSnapshot<T> {
             ongoingCalculation.cancel(true);
         }
 
+        @Override
+        boolean isUpToDate() {
+            return ongoingCalculation.isDone();
+        }
+
     }
 
     public NotBlockingAutoUpdatedSnapshot(String name, Callable<T> callable) {
@@ -181,6 +204,11 @@ class NotBlockingAutoUpdatedSnapshot<T> implements IAutoUpdatedSnapshot<T> {
         return currentState.get().getValue();
     }
 
+    @Override
+    public boolean isUpToDate() {
+        return currentState.get().isUpToDate();
+    }
+
     public void reloadNeeded(ExecutorService executorService) {
         Future<T> future = executorService
                 .submit(callableDecoratedWithStatistics());
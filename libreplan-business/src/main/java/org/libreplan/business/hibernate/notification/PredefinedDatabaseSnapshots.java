@@ -40,7 +40,12 @@ import org.libreplan.business.calendars.entities.CalendarException;
 import org.libreplan.business.common.AdHocTransactionService;
 import org.libreplan.business.common.IAdHocTransactionService;
 import org.libreplan.business.costcategories.daos.ICostCategoryDAO;
+import org.libreplan.business.costcategories.daos.IHourCostDAO;
 import org.libreplan.business.costcategories.entities.CostCategory;
+import org.libreplan.business.costcategories.entities.HourCost;
+import org.libreplan.business.costcategories.entities.PriceCostIndex;
+import org.libreplan.business.costcategories.entities.ResourcesCostCategoryAssignment;
+import org.libreplan.business.costcategories.entities.TypeOfWorkHours;
 import org.libreplan.business.externalcompanies.daos.IExternalCompanyDAO;
 import org.libreplan.business.externalcompanies.entities.ExternalCompany;
 import org.libreplan.business.labels.daos.ILabelDAO;
@@ -50,6 +55,7 @@ import org.libreplan.business.labels.entities.LabelType;
 import org.libreplan.business.orders.daos.IOrderDAO;
 import org.libreplan.business.orders.entities.Order;
 import org.libreplan.business.planner.chart.ResourceLoadChartData;
+import org.libreplan.business.planner.chart.ResourceLoadCube;
 import org.libreplan.business.planner.daos.IDayAssignmentDAO;
 import org.libreplan.business.planner.daos.ITaskElementDAO;
 import org.libreplan.business.planner.entities.DayAssignment;
@@ -71,6 +77,7 @@ import org.libreplan.business.resources.entities.Resource;
 import org.libreplan.business.resources.entities.VirtualWorker;
 import org.libreplan.business.resources.entities.Worker;
 import org.libreplan.business.scenarios.IScenarioManager;
+import org.libreplan.business.util.Pair;
 import org.libreplan.business.workreports.daos.IWorkReportLineDAO;
 import org.libreplan.business.workreports.entities.WorkReportLine;
 import org.springframework.beans.factory.annotation.Autowired;
@@ -149,11 +156,29 @@ public class PredefinedDatabaseSnapshots {
         return ordersCodes.getValue();
     }
 
-    private IAutoUpdatedSnapshot<ResourceLoadChartData>
-        resourceLoadChartData;
+    private IAutoUpdatedSnapshot<Pair<ResourceLoadChartData, ResourceLoadCube>>
+        resourceLoad;
 
     public ResourceLoadChartData snapshotResourceLoadChartData() {
-        return resourceLoadChartData.getValue();
+        return resourceLoad.getValue().getFirst();
+    }
+
+    /**
+     * @return the load of each resource by day, or <code>null</code> if it's
+     *         being recalculated because some allocations have changed, so it
+     *         could disagree with the load retrieved directly
+     */
+    public ResourceLoadCube snapshotUpToDateResourceLoadCube() {
+        if (!resourceLoad.isUpToDate()) {
+            return null;
+        }
+        return resourceLoad.getValue().getSecond();
+    }
+
+    private IAutoUpdatedSnapshot<PriceCostIndex> priceCostIndex;
+
+    public PriceCostIndex snapshotPriceCostIndex() {
+        return priceCostIndex.getValue();
     }
 
     private IAutoUpdatedSnapshot<List<WorkReportLine>> workReportLines;
@@ -204,11 +229,14 @@ public class PredefinedDatabaseSnapshots {
                 calculateCustomerReferences(), Order.class);
         ordersCodes = snapshot("order codes", calculateOrdersCodes(),
                 Order.class);
-        resourceLoadChartData = snapshot("resource load grouped by date",
-                calculateResourceLoadChartData(),
+        resourceLoad = snapshot("resource load grouped by date and resource",
+                calculateResourceLoad(),
                 CalendarAvailability.class, CalendarException.class,
                 CalendarData.class, TaskElement.class, SpecificResourceAllocation.class,
                 GenericResourceAllocation.class, ResourceAllocation.class);
+        priceCostIndex = snapshot("price costs by resource and type",
+                calculatePriceCostIndex(), CostCategory.class, HourCost.class,
+                ResourcesCostCategoryAssignment.class, TypeOfWorkHours.class);
         workReportLines = snapshot("work report lines", calculateWorkReportLines(),
                 WorkReportLine.class);
         estimatedCostPerTask = snapshot("estimated cost per task",
@@ -398,20 +426,37 @@ public class PredefinedDatabaseSnapshots {
     @Autowired
     private IScenarioManager scenarioManager;
 
-    private Callable<ResourceLoadChartData> calculateResourceLoadChartData() {
-        return new Callable<ResourceLoadChartData>() {
+    /**
+     * The load chart of all the resources and the load by resource are
+     * calculated from the same day assignments, so they're only retrieved once
+     */
+    private Callable<Pair<ResourceLoadChartData, ResourceLoadCube>> calculateResourceLoad() {
+        return new Callable<Pair<ResourceLoadChartData, ResourceLoadCube>>() {
             @Override
-            public ResourceLoadChartData call() {
+            public Pair<ResourceLoadChartData, ResourceLoadCube> call() {
 
                 List<DayAssignment> dayAssignments = dayAssignmentDAO.getAllFor(
                         scenarioManager.getCurrent(), null, null);
                 List<Resource> resources = resourceDAO.list(Resource.class);
-                return new ResourceLoadChartData(dayAssignments, resources);
+                return Pair.create(new ResourceLoadChartData(dayAssignments,
+                        resources), ResourceLoadCube.create(dayAssignments));
 
             }
         };
     }
 
+    @Autowired
+    private IHourCostDAO hourCostDAO;
+
+    private Callable<PriceCostIndex> calculatePriceCostIndex() {
+        return new Callable<PriceCostIndex>() {
+            @Override
+            public PriceCostIndex call() {
+                return hourCostDAO.getPriceCostIndex();
+            }
+        };
+    }
+
     @Autowired
     private IWorkReportLineDAO workReportLineDAO;
 
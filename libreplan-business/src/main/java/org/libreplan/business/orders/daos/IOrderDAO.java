@@ -23,6 +23,7 @@ package org.libreplan.business.orders.daos;
 
 import java.util.Date;
 import java.util.List;
+import java.util.Set;
 
 import org.libreplan.business.common.daos.IIntegrationEntityDAO;
 import org.libreplan.business.common.exceptions.InstanceNotFoundException;
@@ -71,6 +72,14 @@ public interface IOrderDAO extends IIntegrationEntityDAO<Order> {
      */
     List<Order> getOrdersByReadAuthorization(User user);
 
+    /**
+     * Returns the identifiers of the orders the user can read, through its own
+     * authorizations or the ones of its profiles, retrieved with one query.
+     * @param user User.
+     * @return <code>null</code> if the user can read all the orders.
+     */
+    Set<Long> getOrdersIdsByReadAuthorization(User user);
+
     /**
      * Returns a list of orders filtered by the write authorizations of the indicated
      * user.
@@ -24,7 +24,14 @@ import java.math.BigDecimal;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.Set;
 
 import org.apache.commons.lang.StringUtils;
 import org.hibernate.Criteria;
@@ -35,10 +42,11 @@ import org.libreplan.business.common.IAdHocTransactionService;
 import org.libreplan.business.common.IOnTransaction;
 import org.libreplan.business.common.daos.IntegrationEntityDAO;
 import org.libreplan.business.common.exceptions.InstanceNotFoundException;
-import org.libreplan.business.costcategories.daos.CostCategoryDAO;
 import org.libreplan.business.costcategories.daos.ITypeOfWorkHoursDAO;
+import org.libreplan.business.costcategories.entities.PriceCostIndex;
 import org.libreplan.business.costcategories.entities.TypeOfWorkHours;
 import org.libreplan.business.externalcompanies.entities.ExternalCompany;
+import org.libreplan.business.hibernate.notification.PredefinedDatabaseSnapshots;
 import org.libreplan.business.labels.entities.Label;
 import org.libreplan.business.orders.entities.Order;
 import org.libreplan.business.orders.entities.OrderElement;
@@ -90,6 +98,27 @@ public class OrderDAO extends IntegrationEntityDAO<Order> implements
     @Autowired
     private IAdHocTransactionService transactionService;
 
+    @Autowired
+    private PredefinedDatabaseSnapshots databaseSnapshots;
+
+    private static final int MAX_ROOT_ORDERS_CACHED = 10000;
+
+    /**
+     * The root order of each order element already resolved. An order element
+     * is never moved to another order, so once known it doesn't change. Only
+     * the {@link #MAX_ROOT_ORDERS_CACHED} most recently used are kept
+     */
+    private final Map<Long, Long> rootOrderIdByElementId = Collections
+            .synchronizedMap(new LinkedHashMap<Long, Long>(16, 0.75f, true) {
+
+                @Override
+                protected boolean removeEldestEntry(Entry<Long, Long> eldest) {
+                    return size() > MAX_ROOT_ORDERS_CACHED;
+                }
+            });
+
+    private static final int MAX_IDS_PER_QUERY = 1000;
+
     @Override
     public List<Order> getOrders() {
         return list(Order.class);
@@ -100,6 +129,19 @@ public class OrderDAO extends IntegrationEntityDAO<Order> implements
         Order order = find(id);
         OrderElementDAO.removeTaskSourcesFor(taskSourceDAO, order);
         super.remove(id);
+        forgetRootOrder(id);
+    }
+
+    private void forgetRootOrder(Long orderId) {
+        synchronized (rootOrderIdByElementId) {
+            Iterator<Long> iterator = rootOrderIdByElementId.values()
+                    .iterator();
+            while (iterator.hasNext()) {
+                if (orderId.equals(iterator.next())) {
+                    iterator.remove();
+                }
+            }
+        }
     }
 
     private boolean isOrderContained(Order order, List<Order> orders) {
@@ -157,6 +199,13 @@ public class OrderDAO extends IntegrationEntityDAO<Order> implements
 
         List<OrderCostsPerResourceDTO> list = query.list();
 
+        PriceCostIndex prices = databaseSnapshots.snapshotPriceCostIndex();
+        Map<String, TypeOfWorkHours> typesByCode = new HashMap<String, TypeOfWorkHours>();
+        for (TypeOfWorkHours each : typeOfWorkHoursDAO
+                .list(TypeOfWorkHours.class)) {
+            typesByCode.put(each.getCode(), each);
+        }
+
         List<OrderCostsPerResourceDTO> filteredList = new ArrayList<OrderCostsPerResourceDTO>();
         for (OrderCostsPerResourceDTO each : list) {
 
@@ -170,17 +219,13 @@ public class OrderDAO extends IntegrationEntityDAO<Order> implements
                 each.setOrderName(order.getName());
                 each.setOrderCode(order.getCode());
                 // Attach calculated pricePerHour
-                BigDecimal pricePerHour = CostCategoryDAO
-                        .getPriceByResourceDateAndHourType(each.getWorker(),
-                                new LocalDate(each.getDate()), each
-                                        .getHoursTypeCode());
-                if (pricePerHour == null) {
-                    for (TypeOfWorkHours defaultprice : typeOfWorkHoursDAO
-                            .list(TypeOfWorkHours.class)) {
-                        if (defaultprice.getCode().equals(
-                                each.getHoursTypeCode())) {
-                            pricePerHour = defaultprice.getDefaultPrice();
-                        }
+                TypeOfWorkHours type = typesByCode.get(each.getHoursTypeCode());
+                BigDecimal pricePerHour = null;
+                if (type != null) {
+                    pricePerHour = prices.getPriceCost(each.getWorker(),
+                            new LocalDate(each.getDate()), type);
+                    if (pricePerHour == null) {
+                        pricePerHour = type.getDefaultPrice();
                     }
                 }
 
@@ -194,27 +239,15 @@ public class OrderDAO extends IntegrationEntityDAO<Order> implements
 
     @Override
     public List<Order> getOrdersByReadAuthorization(User user) {
-        if (user.isInRole(UserRole.ROLE_SUPERUSER)
-                || user.isInRole(UserRole.ROLE_READ_ALL_PROJECTS)
-                || user.isInRole(UserRole.ROLE_EDIT_ALL_PROJECTS)) {
+        Set<Long> ids = getOrdersIdsByReadAuthorization(user);
+        if (ids == null) {
             return getOrders();
         }
-        else {
-            List<Order> orders = new ArrayList<Order>();
-            List<OrderAuthorization> authorizations = orderAuthorizationDAO.listByUserAndItsProfiles(user);
-            for(OrderAuthorization authorization : authorizations) {
-                if (authorization.getAuthorizationType() == OrderAuthorizationType.READ_AUTHORIZATION ||
-                    authorization.getAuthorizationType() == OrderAuthorizationType.WRITE_AUTHORIZATION) {
-
-                    Order order = authorization.getOrder();
-                    if(!orders.contains(order)) {
-                        order.getName(); //this lines forces the load of the basic attributes of the order
-                        orders.add(order);
-                    }
-                }
-            }
-            return orders;
+        if (ids.isEmpty()) {
+            return new ArrayList<Order>();
         }
+        return getSession().createCriteria(Order.class)
+                .add(Restrictions.in("id", ids)).list();
     }
 
     private List<Order> getOrdersByReadAuthorizationBetweenDatesByLabelsCriteriaCustomerAndState(
@@ -335,7 +368,11 @@ public class OrderDAO extends IntegrationEntityDAO<Order> implements
     private List<Long> getOrdersIdsFiltered(User user, List<Label> labels,
             List<Criterion> criteria, ExternalCompany customer,
             OrderStatusEnum state) {
-        List<Long> ordersIdsByReadAuthorization = getOrdersIdsByReadAuthorization(user);
+        Set<Long> ordersIdsByReadAuthorization = getOrdersIdsByReadAuthorization(user);
+        if (ordersIdsByReadAuthorization != null
+                && ordersIdsByReadAuthorization.isEmpty()) {
+            return Collections.emptyList();
+        }
 
         String strQuery = "SELECT o.id ";
         strQuery += "FROM Order o ";
@@ -386,17 +423,12 @@ public class OrderDAO extends IntegrationEntityDAO<Order> implements
 
         // If not restrictions by labels, criteria, customer or state
         if (where.isEmpty()) {
-            return ordersIdsByReadAuthorization;
+            return ordersIdsByReadAuthorization == null ? null
+                    : new ArrayList<Long>(ordersIdsByReadAuthorization);
         }
 
-        if (ordersIdsByReadAuthorization != null
-                && !ordersIdsByReadAuthorization.isEmpty()) {
-            if (where.isEmpty()) {
-                where += "WHERE ";
-            } else {
-                where += "AND ";
-            }
-            where += "o.id IN (:ids) ";
+        if (ordersIdsByReadAuthorization != null) {
+            where += "AND o.id IN (:ids) ";
         }
 
         strQuery += where + whereFinal;
@@ -421,26 +453,21 @@ public class OrderDAO extends IntegrationEntityDAO<Order> implements
             query.setParameter("state", state);
         }
 
-        if (ordersIdsByReadAuthorization != null
-                && !ordersIdsByReadAuthorization.isEmpty()) {
+        if (ordersIdsByReadAuthorization != null) {
             query.setParameterList("ids", ordersIdsByReadAuthorization);
         }
 
         return query.list();
     }
 
-    /**
-     * If user has permissions over all orders it returns <code>null</code>.
-     * Otherwise, it returns the list of orders identifiers for which the user
-     * has read permissions.
-     */
-    private List<Long> getOrdersIdsByReadAuthorization(User user) {
+    @Override
+    public Set<Long> getOrdersIdsByReadAuthorization(User user) {
         if (user.isInRole(UserRole.ROLE_SUPERUSER)
                 || user.isInRole(UserRole.ROLE_READ_ALL_PROJECTS)
                 || user.isInRole(UserRole.ROLE_EDIT_ALL_PROJECTS)) {
             return null;
         } else {
-            String strQuery = "SELECT oa.order.id "
+            String strQuery = "SELECT DISTINCT oa.order.id "
                     + "FROM OrderAuthorization oa "
                     + "WHERE oa.user = :user ";
             if (!user.getProfiles().isEmpty()) {
@@ -453,7 +480,7 @@ public class OrderDAO extends IntegrationEntityDAO<Order> implements
                 query.setParameterList("profiles", user.getProfiles());
             }
 
-            return query.list();
+            return new HashSet<Long>(query.list());
         }
     }
 
@@ -631,48 +658,97 @@ public class OrderDAO extends IntegrationEntityDAO<Order> implements
     @Override
     public List<Order> loadOrdersAvoidingProxyFor(
             final List<OrderElement> orderElements) {
-        List<OrderElement> orders = transactionService
-                .runOnAnotherTransaction(new IOnTransaction<List<OrderElement>>() {
-
-                    @Override
-                    public List<OrderElement> execute() {
-                        List<OrderElement> result = new ArrayList<OrderElement>();
-                        for (OrderElement each : orderElements) {
-                            if (each.isNewObject()) {
-                                result.add(each.getOrder());
-                            } else {
-                                result.add(orderFrom(each));
-                            }
-                        }
-                        return result;
-                    }
+        final Set<Long> notResolved = new HashSet<Long>();
+        for (OrderElement each : orderElements) {
+            if (!each.isNewObject()
+                    && !rootOrderIdByElementId.containsKey(each.getId())) {
+                notResolved.add(each.getId());
+            }
+        }
+        if (!notResolved.isEmpty()) {
+            transactionService
+                    .runOnAnotherTransaction(new IOnTransaction<Void>() {
 
-                    private OrderElement orderFrom(OrderElement initial) {
-                        OrderElement current = initial;
-                        OrderElement result = current;
-                        while (current != null) {
-                            result = current;
-                            current = findParent(current);
+                        @Override
+                        public Void execute() {
+                            resolveRootOrders(notResolved);
+                            return null;
                         }
-                        return result;
-                    }
+                    });
+        }
+        List<Order> result = new ArrayList<Order>();
+        for (OrderElement each : orderElements) {
+            if (each.isNewObject()) {
+                result.add(each.getOrder());
+                continue;
+            }
+            Long rootId = rootOrderIdByElementId.get(each.getId());
+            result.add(findExistingEntity(rootId != null ? rootId : each
+                    .getId()));
+        }
+        return result;
+    }
 
-                    private OrderElement findParent(OrderElement orderElement) {
-                        Query query = getSession()
-                                .createQuery(
-                                        "select e.parent from OrderElement e where e.id = :id")
-                                .setParameter("id", orderElement.getId());
-                        return (OrderElement) query.uniqueResult();
-                    }
+    /**
+     * Climbs the trees of all the order elements at the same time, with a
+     * query for each level instead of one for each level and element
+     */
+    private void resolveRootOrders(Set<Long> elementIds) {
+        Map<Long, Long> parentById = new HashMap<Long, Long>();
+        Set<Long> toRetrieve = new HashSet<Long>(elementIds);
+        while (!toRetrieve.isEmpty()) {
+            Set<Long> next = new HashSet<Long>();
+            for (Object[] each : findParents(toRetrieve)) {
+                Long id = (Long) each[0];
+                Long parentId = (Long) each[1];
+                parentById.put(id, parentId);
+                if (parentId != null && !parentById.containsKey(parentId)
+                        && !rootOrderIdByElementId.containsKey(parentId)) {
+                    next.add(parentId);
+                }
+            }
+            toRetrieve = next;
+        }
+        for (Long each : elementIds) {
+            Long rootId = rootFrom(each, parentById);
+            if (rootId != null) {
+                rootOrderIdByElementId.put(each, rootId);
+            }
+        }
+    }
 
-                });
-        List<Order> result = new ArrayList<Order>();
-        for (OrderElement each : orders) {
-            if (each != null) {
-                result.add(findExistingEntity(each.getId()));
-            } else {
-                result.add(null);
+    private Long rootFrom(Long elementId, Map<Long, Long> parentById) {
+        Long current = elementId;
+        while (true) {
+            Long alreadyKnown = rootOrderIdByElementId.get(current);
+            if (alreadyKnown != null) {
+                return alreadyKnown;
+            }
+            if (!parentById.containsKey(current)) {
+                // it doesn't exist in the database
+                return null;
+            }
+            Long parentId = parentById.get(current);
+            if (parentId == null) {
+                return current;
             }
+            current = parentId;
+        }
+    }
+
+    @SuppressWarnings("unchecked")
+    private List<Object[]> findParents(Set<Long> ids) {
+        List<Object[]> result = new ArrayList<Object[]>();
+        List<Long> idsList = new ArrayList<Long>(ids);
+        for (int i = 0; i < idsList.size(); i += MAX_IDS_PER_QUERY) {
+            Query query = getSession()
+                    .createQuery(
+                            "select e.id, p.id from OrderElement e left join e.parent p where e.id in (:ids)")
+                    .setParameterList(
+                            "ids",
+                            idsList.subList(i,
+                                    Math.min(idsList.size(), i + MAX_IDS_PER_QUERY)));
+            result.addAll(query.list());
         }
         return result;
     }
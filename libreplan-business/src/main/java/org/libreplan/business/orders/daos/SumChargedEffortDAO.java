@@ -73,15 +73,23 @@ public class SumChargedEffortDAO extends
     @Autowired
     private IOrderElementDAO orderElementDAO;
 
-    private Map<OrderElement, SumChargedEffort> mapSumChargedEfforts;
+    /**
+     * {@link SumChargedEffort} already retrieved in the current operation. It's
+     * kept by thread as the recalculations are also done in background, and
+     * removed when the operation ends so the pooled threads don't retain it
+     */
+    private final ThreadLocal<Map<OrderElement, SumChargedEffort>> mapSumChargedEfforts = new ThreadLocal<Map<OrderElement, SumChargedEffort>>();
 
     @Override
     public void updateRelatedSumChargedEffortWithWorkReportLineSet(
             Set<WorkReportLine> workReportLineSet) {
         resetMapSumChargedEfforts();
-
-        for (WorkReportLine workReportLine : workReportLineSet) {
-            updateRelatedSumChargedEffortWithAddedOrModifiedWorkReportLine(workReportLine);
+        try {
+            for (WorkReportLine workReportLine : workReportLineSet) {
+                updateRelatedSumChargedEffortWithAddedOrModifiedWorkReportLine(workReportLine);
+            }
+        } finally {
+            mapSumChargedEfforts.remove();
         }
     }
 
@@ -180,14 +188,17 @@ public class SumChargedEffortDAO extends
     public void updateRelatedSumChargedEffortWithDeletedWorkReportLineSet(
             Set<WorkReportLine> workReportLineSet) {
         resetMapSumChargedEfforts();
-
-        for (WorkReportLine workReportLine : workReportLineSet) {
-            updateRelatedSumChargedEffortWithDeletedWorkReportLine(workReportLine);
+        try {
+            for (WorkReportLine workReportLine : workReportLineSet) {
+                updateRelatedSumChargedEffortWithDeletedWorkReportLine(workReportLine);
+            }
+        } finally {
+            mapSumChargedEfforts.remove();
         }
     }
 
     private void resetMapSumChargedEfforts() {
-        mapSumChargedEfforts = new HashMap<OrderElement, SumChargedEffort>();
+        mapSumChargedEfforts.set(new HashMap<OrderElement, SumChargedEffort>());
     }
 
     private void updateRelatedSumChargedEffortWithDeletedWorkReportLine(
@@ -229,14 +240,14 @@ public class SumChargedEffortDAO extends
     }
 
     private SumChargedEffort getByOrderElement(OrderElement orderElement) {
-        SumChargedEffort sumChargedEffort = mapSumChargedEfforts
-                .get(orderElement);
+        SumChargedEffort sumChargedEffort = mapSumChargedEfforts.get().get(
+                orderElement);
         if (sumChargedEffort == null) {
             sumChargedEffort = findByOrderElement(orderElement);
             if (sumChargedEffort == null) {
                 sumChargedEffort = SumChargedEffort.create(orderElement);
             }
-            mapSumChargedEfforts.put(orderElement, sumChargedEffort);
+            mapSumChargedEfforts.get().put(orderElement, sumChargedEffort);
         }
         return sumChargedEffort;
     }
@@ -259,6 +270,8 @@ public class SumChargedEffortDAO extends
             calculateTimesheetData(order);
         } catch (InstanceNotFoundException e) {
             throw new RuntimeException(e);
+        } finally {
+            mapSumChargedEfforts.remove();
         }
     }
 
@@ -393,6 +406,7 @@ public class SumChargedEffortDAO extends
     @Override
     @Transactional
     public void recalculateTimesheetData(Set<OrderElement> orderElements) {
+        resetMapSumChargedEfforts();
         try {
             for (OrderElement orderElement : orderElements) {
                 saveTimesheetDatesRecursively(orderElementDAO.find(orderElement
@@ -402,6 +416,8 @@ public class SumChargedEffortDAO extends
             }
         } catch (InstanceNotFoundException e) {
             throw new RuntimeException(e);
+        } finally {
+            mapSumChargedEfforts.remove();
         }
     }
 
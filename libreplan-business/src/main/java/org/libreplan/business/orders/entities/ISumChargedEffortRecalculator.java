@@ -19,6 +19,7 @@
 
 package org.libreplan.business.orders.entities;
 
+import java.util.Set;
 
 /**
  * Interface to recalculate {@link SumChargedEffort} for an {@link Order}.<br />
@@ -37,4 +38,16 @@ public interface ISumChargedEffortRecalculator {
      */
     void recalculate(Long orderId);
 
+    /**
+     * Mark the {@link OrderElement OrderElements} to recalculate the timesheet
+     * data of its {@link SumChargedEffort} once the current transaction is
+     * committed.<br />
+     *
+     * The order elements already waiting to be recalculated are not added
+     * again.
+     *
+     * @param orderElements
+     */
+    void recalculateTimesheetData(Set<OrderElement> orderElements);
+
 }
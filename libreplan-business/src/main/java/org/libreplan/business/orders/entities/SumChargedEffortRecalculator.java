@@ -19,6 +19,10 @@
 
 package org.libreplan.business.orders.entities;
 
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 
@@ -31,6 +35,8 @@ import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.Scope;
 import org.springframework.dao.OptimisticLockingFailureException;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 /**
  * Class to recalculate {@link SumChargedEffort} for an {@link Order}.<br />
@@ -72,12 +78,93 @@ public class SumChargedEffortRecalculator implements
      */
     private ExecutorService executor = Executors.newSingleThreadExecutor();
 
+    /**
+     * {@link OrderElement OrderElements} waiting to recalculate its timesheet
+     * data, by id. They are recalculated all together by the next timesheet
+     * data recalculation run by the executor.
+     */
+    private final Map<Long, OrderElement> pendingTimesheetData = new HashMap<Long, OrderElement>();
+
     @Override
     public void recalculate(Long orderId) {
         LOG.info("Mark order (id=" + orderId + ") to be recalculated");
         executor.execute(getRecalculationThread(orderId));
     }
 
+    @Override
+    public void recalculateTimesheetData(final Set<OrderElement> orderElements) {
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            markToRecalculateTimesheetData(orderElements);
+            return;
+        }
+        TransactionSynchronizationManager
+                .registerSynchronization(new TransactionSynchronizationAdapter() {
+
+                    @Override
+                    public void afterCommit() {
+                        markToRecalculateTimesheetData(orderElements);
+                    }
+                });
+    }
+
+    private void markToRecalculateTimesheetData(Set<OrderElement> orderElements) {
+        boolean recalculationPending;
+        synchronized (pendingTimesheetData) {
+            recalculationPending = !pendingTimesheetData.isEmpty();
+            for (OrderElement each : orderElements) {
+                pendingTimesheetData.put(each.getId(), each);
+            }
+        }
+        if (!recalculationPending && !orderElements.isEmpty()) {
+            executor.execute(getTimesheetDataRecalculationThread());
+        }
+    }
+
+    private Runnable getTimesheetDataRecalculationThread() {
+        return new Runnable() {
+
+            @Override
+            public void run() {
+                Set<OrderElement> orderElements;
+                synchronized (pendingTimesheetData) {
+                    orderElements = new HashSet<OrderElement>(
+                            pendingTimesheetData.values());
+                    pendingTimesheetData.clear();
+                }
+                try {
+                    recalculateTimesheetData(orderElements, 0);
+                } catch (InterruptedException e) {
+                    throw new RuntimeException(e);
+                }
+            }
+
+            private void recalculateTimesheetData(
+                    Set<OrderElement> orderElements, int counter)
+                    throws InterruptedException {
+                if (counter > MAX_ATTEMPS_BECAUSE_CONCURRENCY) {
+                    LOG.error("Impossible to recalculate timesheet data of "
+                            + orderElements.size()
+                            + " order elements due to concurrency problems");
+                    return;
+                }
+
+                try {
+                    LOG.info("Recalculate timesheet data of "
+                            + orderElements.size() + " order elements");
+                    sumChargedEffortDAO.recalculateTimesheetData(orderElements);
+                } catch (OptimisticLockingFailureException e) {
+                    // Wait 1 second and try again
+                    LOG.info("Concurrency problem recalculating timesheet data trying again in 1 second (attempt "
+                            + counter + ")");
+                    Thread.sleep(1000);
+
+                    counter++;
+                    recalculateTimesheetData(orderElements, counter);
+                }
+            }
+        };
+    }
+
     private Runnable getRecalculationThread(final Long orderId) {
         return new Runnable() {
 
@@ -15,4 +15,9 @@ public interface ILoadChartData {
     SortedMap<LocalDate, EffortDuration> getAvailability();
 
     SortedMap<LocalDate, EffortDuration> getOverload();
-}
\ No newline at end of file
+
+    /**
+     * @return the same data grouped by {@link WeeklyAverages week}
+     */
+    ILoadChartData byWeek();
+}
@@ -34,6 +34,7 @@ import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedMap;
+import java.util.TreeMap;
 
 import org.joda.time.LocalDate;
 import org.libreplan.business.hibernate.notification.PredefinedDatabaseSnapshots;
@@ -61,6 +62,8 @@ public class ResourceLoadChartData implements ILoadChartData {
 
     private SortedMap<LocalDate, EffortDuration> availability;
 
+    private ResourceLoadChartData byWeek;
+
     public ResourceLoadChartData(List<DayAssignment> dayAssignments, List<Resource> resources) {
         this(dayAssignments, resources, null, null);
     }
@@ -191,6 +194,29 @@ public class ResourceLoadChartData implements ILoadChartData {
         return availability;
     }
 
+    ResourceLoadChartData(SortedMap<LocalDate, EffortDuration> load,
+            SortedMap<LocalDate, EffortDuration> overload,
+            SortedMap<LocalDate, EffortDuration> availability) {
+        this.load = load;
+        this.overload = overload;
+        this.availability = availability;
+    }
+
+    /**
+     * The weekly values are calculated only once, so they can be reused each
+     * time the chart is shown with a zoom level grouping by week
+     */
+    @Override
+    public synchronized ResourceLoadChartData byWeek() {
+        if (byWeek == null) {
+            byWeek = new ResourceLoadChartData(WeeklyAverages.of(load),
+                    WeeklyAverages.of(overload),
+                    WeeklyAverages.of(availability));
+            byWeek.byWeek = byWeek;
+        }
+        return byWeek;
+    }
+
     public ILoadChartData on(final LocalDate startInclusive,
             final LocalDate endExclusive) {
 
@@ -215,13 +241,49 @@ public class ResourceLoadChartData implements ILoadChartData {
                 return filter(original.getAvailability());
             }
 
+            @Override
+            public ILoadChartData byWeek() {
+                final ResourceLoadChartData byWeek = original.byWeek();
+                return new ILoadChartData() {
+
+                    @Override
+                    public SortedMap<LocalDate, EffortDuration> getOverload() {
+                        return weeksIn(byWeek.getOverload());
+                    }
+
+                    @Override
+                    public SortedMap<LocalDate, EffortDuration> getLoad() {
+                        return weeksIn(byWeek.getLoad());
+                    }
+
+                    @Override
+                    public SortedMap<LocalDate, EffortDuration> getAvailability() {
+                        return weeksIn(byWeek.getAvailability());
+                    }
+
+                    private SortedMap<LocalDate, EffortDuration> weeksIn(
+                            SortedMap<LocalDate, EffortDuration> map) {
+                        return WeeklyAverages.weeksIn(map, startInclusive,
+                                endExclusive);
+                    }
+
+                    @Override
+                    public ILoadChartData byWeek() {
+                        return this;
+                    }
+                };
+            }
+
             private SortedMap<LocalDate, EffortDuration> filter(
                     SortedMap<LocalDate, EffortDuration> map) {
-                if (startInclusive != null) {
+                if (startInclusive == null) {
+                    return map.headMap(endExclusive);
+                }
+                if (endExclusive == null) {
                     return map.tailMap(startInclusive);
                 }
-                if (endExclusive != null) {
-                    return map.headMap(endExclusive);
+                if (!startInclusive.isBefore(endExclusive)) {
+                    return new TreeMap<LocalDate, EffortDuration>();
                 }
                 return map.subMap(startInclusive, endExclusive);
             }
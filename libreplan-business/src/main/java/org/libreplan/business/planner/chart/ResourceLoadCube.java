@@ -0,0 +1,151 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2013 Igalia, S.L.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.planner.chart;
+
+import static org.libreplan.business.workingday.EffortDuration.min;
+import static org.libreplan.business.workingday.EffortDuration.zero;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.joda.time.LocalDate;
+import org.libreplan.business.hibernate.notification.PredefinedDatabaseSnapshots;
+import org.libreplan.business.planner.entities.DayAssignment;
+import org.libreplan.business.resources.entities.Resource;
+import org.libreplan.business.workingday.EffortDuration;
+import org.libreplan.business.workingday.IntraDayDate.PartialDay;
+
+/**
+ * Assigned effort of each resource by day. It's calculated once and kept in a
+ * {@link PredefinedDatabaseSnapshots snapshot} shared by all the users, so the
+ * load chart for some resources can be sliced from it instead of retrieving
+ * and grouping their day assignments each time.
+ */
+public class ResourceLoadCube {
+
+    public static ResourceLoadCube create(
+            Collection<? extends DayAssignment> dayAssignments) {
+        Map<Long, SortedMap<LocalDate, EffortDuration>> loadByResource = new HashMap<Long, SortedMap<LocalDate, EffortDuration>>();
+        for (DayAssignment each : dayAssignments) {
+            Long resourceId = each.getResource().getId();
+            SortedMap<LocalDate, EffortDuration> byDay = loadByResource
+                    .get(resourceId);
+            if (byDay == null) {
+                byDay = new TreeMap<LocalDate, EffortDuration>();
+                loadByResource.put(resourceId, byDay);
+            }
+            EffortDuration previous = byDay.get(each.getDay());
+            byDay.put(each.getDay(), previous == null ? each.getDuration()
+                    : previous.plus(each.getDuration()));
+        }
+        return new ResourceLoadCube(loadByResource);
+    }
+
+    private final Map<Long, SortedMap<LocalDate, EffortDuration>> loadByResource;
+
+    private ResourceLoadCube(
+            Map<Long, SortedMap<LocalDate, EffortDuration>> loadByResource) {
+        this.loadByResource = loadByResource;
+    }
+
+    public SortedMap<LocalDate, EffortDuration> getLoadFor(Resource resource) {
+        SortedMap<LocalDate, EffortDuration> result = loadByResource
+                .get(resource.getId());
+        if (result == null) {
+            return new TreeMap<LocalDate, EffortDuration>();
+        }
+        return Collections.unmodifiableSortedMap(result);
+    }
+
+    /**
+     * Calculates the load chart values for the resources provided. Like
+     * {@link ResourceLoadChartData} only the days between the first and the
+     * last day with load are included.
+     *
+     * @param startInclusive
+     *            it can be <code>null</code>
+     * @param endExclusive
+     *            it can be <code>null</code>
+     */
+    public ResourceLoadChartData sliceFor(
+            Collection<? extends Resource> resources,
+            LocalDate startInclusive, LocalDate endExclusive) {
+        List<SortedMap<LocalDate, EffortDuration>> loads = new ArrayList<SortedMap<LocalDate, EffortDuration>>();
+        LocalDate first = null;
+        LocalDate last = null;
+        for (Resource each : resources) {
+            SortedMap<LocalDate, EffortDuration> byDay = loadByResource
+                    .get(each.getId());
+            loads.add(byDay);
+            if (byDay == null || byDay.isEmpty()) {
+                continue;
+            }
+            if (first == null || byDay.firstKey().isBefore(first)) {
+                first = byDay.firstKey();
+            }
+            if (last == null || byDay.lastKey().isAfter(last)) {
+                last = byDay.lastKey();
+            }
+        }
+        SortedMap<LocalDate, EffortDuration> load = new TreeMap<LocalDate, EffortDuration>();
+        SortedMap<LocalDate, EffortDuration> overload = new TreeMap<LocalDate, EffortDuration>();
+        SortedMap<LocalDate, EffortDuration> availability = new TreeMap<LocalDate, EffortDuration>();
+        if (first == null) {
+            return new ResourceLoadChartData(load, overload, availability);
+        }
+        LocalDate end = last.plusDays(1);
+        if (startInclusive != null && startInclusive.isAfter(first)) {
+            first = startInclusive;
+        }
+        if (endExclusive != null && endExclusive.isBefore(end)) {
+            end = endExclusive;
+        }
+        List<Resource> resourcesList = new ArrayList<Resource>(resources);
+        for (LocalDate day = first; day.isBefore(end); day = day.plusDays(1)) {
+            PartialDay wholeDay = PartialDay.wholeDay(day);
+            EffortDuration assignedOnDay = zero();
+            EffortDuration overloadOnDay = zero();
+            EffortDuration availabilityOnDay = zero();
+            for (int i = 0; i < resourcesList.size(); i++) {
+                EffortDuration capacity = ResourceLoadChartData
+                        .calendarCapacityFor(resourcesList.get(i), wholeDay);
+                availabilityOnDay = availabilityOnDay.plus(capacity);
+                EffortDuration assigned = loads.get(i) == null ? null : loads
+                        .get(i).get(day);
+                if (assigned != null) {
+                    assignedOnDay = assignedOnDay.plus(assigned);
+                    overloadOnDay = overloadOnDay.plus(assigned.minus(min(
+                            capacity, assigned)));
+                }
+            }
+            load.put(day, min(assignedOnDay, availabilityOnDay));
+            overload.put(day, overloadOnDay.plus(availabilityOnDay));
+            availability.put(day, availabilityOnDay);
+        }
+        return new ResourceLoadChartData(load, overload, availability);
+    }
+
+}
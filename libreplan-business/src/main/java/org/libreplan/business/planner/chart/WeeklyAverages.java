@@ -0,0 +1,97 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2013 Igalia, S.L.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.planner.chart;
+
+import static org.libreplan.business.workingday.EffortDuration.zero;
+
+import java.util.Map.Entry;
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.joda.time.LocalDate;
+import org.libreplan.business.workingday.EffortDuration;
+
+/**
+ * Groups daily values in weeks, as shown by the charts when the zoom level
+ * doesn't allow to see each day. Each week is represented by its thursday and
+ * has the average of the values of the week.
+ */
+public class WeeklyAverages {
+
+    /**
+     * Number of days to Thursday since the beginning of the week. In order to
+     * calculate the middle of a week.
+     */
+    private static final int DAYS_TO_THURSDAY = 3;
+
+    private WeeklyAverages() {
+    }
+
+    public static LocalDate getThursdayOfThisWeek(LocalDate date) {
+        return date.dayOfWeek().withMinimumValue().plusDays(DAYS_TO_THURSDAY);
+    }
+
+    public static SortedMap<LocalDate, EffortDuration> of(
+            SortedMap<LocalDate, EffortDuration> byDay) {
+        SortedMap<LocalDate, EffortDuration> result = new TreeMap<LocalDate, EffortDuration>();
+        LocalDate currentWeek = null;
+        EffortDuration accumulated = zero();
+        for (Entry<LocalDate, EffortDuration> each : byDay.entrySet()) {
+            LocalDate week = getThursdayOfThisWeek(each.getKey());
+            if (!week.equals(currentWeek)) {
+                if (currentWeek != null) {
+                    result.put(currentWeek, accumulated.divideBy(7));
+                }
+                currentWeek = week;
+                accumulated = zero();
+            }
+            accumulated = accumulated.plus(each.getValue());
+        }
+        if (currentWeek != null) {
+            result.put(currentWeek, accumulated.divideBy(7));
+        }
+        return result;
+    }
+
+    /**
+     * @return the weeks with at least one day in the interval
+     */
+    public static SortedMap<LocalDate, EffortDuration> weeksIn(
+            SortedMap<LocalDate, EffortDuration> byWeek,
+            LocalDate startInclusive, LocalDate endExclusive) {
+        if (startInclusive == null && endExclusive == null) {
+            return byWeek;
+        }
+        if (endExclusive == null) {
+            return byWeek.tailMap(getThursdayOfThisWeek(startInclusive));
+        }
+        LocalDate afterLastWeek = getThursdayOfThisWeek(
+                endExclusive.minusDays(1)).plusDays(1);
+        if (startInclusive == null) {
+            return byWeek.headMap(afterLastWeek);
+        }
+        LocalDate firstWeek = getThursdayOfThisWeek(startInclusive);
+        if (!firstWeek.isBefore(afterLastWeek)) {
+            return new TreeMap<LocalDate, EffortDuration>();
+        }
+        return byWeek.subMap(firstWeek, afterLastWeek);
+    }
+
+}
@@ -21,13 +21,32 @@ package org.libreplan.business.planner.entities;
 
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.annotation.PostConstruct;
 
 import org.libreplan.business.costcategories.daos.IHourCostDAO;
+import org.libreplan.business.costcategories.entities.CostCategory;
+import org.libreplan.business.costcategories.entities.HourCost;
+import org.libreplan.business.costcategories.entities.PriceCostIndex;
+import org.libreplan.business.costcategories.entities.ResourcesCostCategoryAssignment;
+import org.libreplan.business.costcategories.entities.TypeOfWorkHours;
+import org.libreplan.business.hibernate.notification.IAutoUpdatedSnapshot;
+import org.libreplan.business.hibernate.notification.ISnapshotRefresherService;
+import org.libreplan.business.hibernate.notification.ReloadOn;
 import org.libreplan.business.orders.entities.OrderElement;
+import org.libreplan.business.orders.entities.SumExpenses;
+import org.libreplan.business.resources.entities.Resource;
 import org.libreplan.business.workreports.daos.IWorkReportLineDAO;
+import org.libreplan.business.workreports.entities.WorkReport;
 import org.libreplan.business.workreports.entities.WorkReportLine;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.config.BeanDefinition;
@@ -41,7 +60,9 @@ import org.springframework.stereotype.Component;
  * the cost category of each resource in the different dates.<br />
  *
  * Money cost is stored in a map that will be cached in memeroy. This map could
- * be reseted when needed with method {@code resetMoneyCostMap}.
+ * be reseted when needed with method {@code resetMoneyCostMap}, and it's
+ * discarded too when the work reports, the cost categories or the expenses
+ * are modified in the database.
  *
  * @author Manuel Rego Casasnovas <mrego@igalia.com>
  * @author Susana Montes Pedreira <smontes@wirelessgalicia.com>
@@ -56,7 +77,18 @@ public class MoneyCostCalculator implements IMoneyCostCalculator {
     @Autowired
     private IHourCostDAO hourCostDAO;
 
-    private Map<OrderElement, MoneyCost> moneyCostTotalMap = new HashMap<OrderElement, MoneyCost>();
+    @Autowired
+    private ISnapshotRefresherService snapshotRefresherService;
+
+    /**
+     * Its value is replaced each time the data the money cost depends on is
+     * modified
+     */
+    private IAutoUpdatedSnapshot<Object> databaseVersion;
+
+    private Object versionOfMap;
+
+    private volatile ConcurrentMap<OrderElement, MoneyCost> moneyCostTotalMap = new ConcurrentHashMap<OrderElement, MoneyCost>();
 
     private class MoneyCost {
         private BigDecimal costOfHours;
@@ -83,9 +115,46 @@ public class MoneyCostCalculator implements IMoneyCostCalculator {
 
     }
 
+    @PostConstruct
+    @SuppressWarnings("unused")
+    private void trackDatabaseVersion() {
+        databaseVersion = snapshotRefresherService.takeSnapshot(
+                "money cost version", new Callable<Object>() {
+
+                    @Override
+                    public Object call() {
+                        return new Object();
+                    }
+                }, ReloadOn.onChangeOf(WorkReport.class,
+                        WorkReportLine.class, CostCategory.class,
+                        HourCost.class, ResourcesCostCategoryAssignment.class,
+                        TypeOfWorkHours.class, SumExpenses.class));
+    }
+
     @Override
     public void resetMoneyCostMap() {
-        moneyCostTotalMap = new HashMap<OrderElement, MoneyCost>();
+        moneyCostTotalMap = new ConcurrentHashMap<OrderElement, MoneyCost>();
+    }
+
+    private ConcurrentMap<OrderElement, MoneyCost> getMoneyCostTotalMap() {
+        Object currentVersion = databaseVersion.getValue();
+        synchronized (this) {
+            if (versionOfMap != currentVersion) {
+                versionOfMap = currentVersion;
+                resetMoneyCostMap();
+            }
+            return moneyCostTotalMap;
+        }
+    }
+
+    private MoneyCost getMoneyCost(ConcurrentMap<OrderElement, MoneyCost> map,
+            OrderElement orderElement) {
+        MoneyCost result = map.get(orderElement);
+        if (result == null) {
+            map.putIfAbsent(orderElement, new MoneyCost());
+            result = map.get(orderElement);
+        }
+        return result;
     }
 
     @Override
@@ -107,53 +176,81 @@ public class MoneyCostCalculator implements IMoneyCostCalculator {
 
     @Override
     public BigDecimal getHoursMoneyCost(OrderElement orderElement) {
-        MoneyCost moneyCost = moneyCostTotalMap.get(orderElement);
+        ConcurrentMap<OrderElement, MoneyCost> map = getMoneyCostTotalMap();
+        MoneyCost moneyCost = map.get(orderElement);
         if (moneyCost != null) {
             BigDecimal result = moneyCost.getCostOfHours();
             if (result != null) {
                 return result;
             }
         }
+        return calculateHoursMoneyCost(map, orderElement);
+    }
 
-        BigDecimal result = BigDecimal.ZERO.setScale(2);
-        for (OrderElement each : orderElement.getChildren()) {
-            result = result.add(getHoursMoneyCost(each));
-        }
+    /**
+     * Calculates the cost of the order element and all its descendants at
+     * once. Their work report lines are retrieved with a single query and the
+     * prices of all their resources with another one.
+     */
+    private BigDecimal calculateHoursMoneyCost(
+            ConcurrentMap<OrderElement, MoneyCost> map,
+            OrderElement orderElement) {
+        List<OrderElement> elements = new ArrayList<OrderElement>(
+                orderElement.getAllChildren());
+        elements.add(orderElement);
+        List<WorkReportLine> lines = workReportLineDAO
+                .findByOrderElements(elements);
+        PriceCostIndex prices = hourCostDAO
+                .getPriceCostIndexFor(resourcesOf(lines));
 
-        result = result.add(getMoneyCostFromOwnWorkReportLines(orderElement))
-                .setScale(2, RoundingMode.HALF_UP);
+        Map<Long, BigDecimal> ownCostById = new HashMap<Long, BigDecimal>();
+        for (WorkReportLine each : lines) {
+            Long id = each.getOrderElement().getId();
+            BigDecimal previous = ownCostById.get(id);
+            BigDecimal cost = getCost(prices, each);
+            ownCostById.put(id, previous == null ? cost : previous.add(cost));
+        }
+        return sumBottomUp(map, orderElement, ownCostById);
+    }
 
-        if (moneyCost == null) {
-            moneyCost = new MoneyCost();
+    private static Set<Resource> resourcesOf(List<WorkReportLine> lines) {
+        Set<Resource> result = new HashSet<Resource>();
+        for (WorkReportLine each : lines) {
+            result.add(each.getResource());
         }
-        moneyCost.setCostOfHours(result);
-        moneyCostTotalMap.put(orderElement, moneyCost);
         return result;
     }
 
-    private BigDecimal getMoneyCostFromOwnWorkReportLines(OrderElement orderElement) {
-        List<WorkReportLine> workReportLines = workReportLineDAO
-                .findByOrderElement(orderElement);
+    private static BigDecimal getCost(PriceCostIndex prices,
+            WorkReportLine workReportLine) {
+        BigDecimal priceCost = prices.getPriceCost(
+                workReportLine.getResource(), workReportLine.getLocalDate(),
+                workReportLine.getTypeOfWorkHours());
 
+        // If cost undefined via CostCategory get it from type
+        if (priceCost == null) {
+            priceCost = workReportLine.getTypeOfWorkHours().getDefaultPrice();
+        }
+
+        return priceCost.multiply(workReportLine.getEffort()
+                .toHoursAsDecimalWithScale(2));
+    }
+
+    private BigDecimal sumBottomUp(ConcurrentMap<OrderElement, MoneyCost> map,
+            OrderElement orderElement, Map<Long, BigDecimal> ownCostById) {
         BigDecimal result = BigDecimal.ZERO.setScale(2);
-        for (WorkReportLine workReportLine : workReportLines) {
-            BigDecimal priceCost = hourCostDAO
-                    .getPriceCostFromResourceDateAndType(
-                            workReportLine.getResource(),
-                            workReportLine.getLocalDate(),
-                            workReportLine.getTypeOfWorkHours());
-
-            // If cost undefined via CostCategory get it from type
-            if (priceCost == null) {
-                priceCost = workReportLine.getTypeOfWorkHours()
-                        .getDefaultPrice();
-            }
+        for (OrderElement each : orderElement.getChildren()) {
+            result = result.add(sumBottomUp(map, each, ownCostById));
+        }
 
-            BigDecimal cost = priceCost.multiply(workReportLine.getEffort()
-                    .toHoursAsDecimalWithScale(2));
-            result = result.add(cost);
+        BigDecimal own = orderElement.isNewObject() ? null : ownCostById
+                .get(orderElement.getId());
+        if (own != null) {
+            result = result.add(own);
         }
+        result = result.setScale(2, RoundingMode.HALF_UP);
 
+        getMoneyCost(map, orderElement).setCostOfHours(result);
         return result;
     }
 
@@ -174,7 +271,8 @@ public class MoneyCostCalculator implements IMoneyCostCalculator {
 
     @Override
     public BigDecimal getExpensesMoneyCost(OrderElement orderElement) {
-        MoneyCost moneyCost = moneyCostTotalMap.get(orderElement);
+        ConcurrentMap<OrderElement, MoneyCost> map = getMoneyCostTotalMap();
+        MoneyCost moneyCost = map.get(orderElement);
         if (moneyCost != null) {
             BigDecimal result = moneyCost.getCostOfExpenses();
             if (result != null) {
@@ -189,11 +287,7 @@ public class MoneyCostCalculator implements IMoneyCostCalculator {
                     2, RoundingMode.HALF_UP);
         }
 
-        if (moneyCost == null) {
-            moneyCost = new MoneyCost();
-        }
-        moneyCost.setCostOfExpenses(result);
-        moneyCostTotalMap.put(orderElement, moneyCost);
+        getMoneyCost(map, orderElement).setCostOfExpenses(result);
         return result;
     }
 
@@ -31,14 +31,16 @@ import java.util.Collection;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IdentityHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
 import java.util.SortedSet;
 import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
-import org.apache.commons.lang.Validate;
 import org.hibernate.proxy.HibernateProxy;
 import org.joda.time.DateTime;
 import org.joda.time.LocalDate;
@@ -277,37 +279,169 @@ public class DeepCopy {
             .<ICustomCopy> asList(new DateCopy(), new SetCopy(), new MapCopy(),
                     new ListCopy());
 
-    private Map<ByIdentity, Object> alreadyCopiedObjects = new HashMap<ByIdentity, Object>();
+    /**
+     * The objects are compared by identity, since the entities could redefine
+     * {@link Object#equals(Object)} and {@link Object#hashCode()}
+     */
+    private Map<Object, Object> alreadyCopiedObjects = new IdentityHashMap<Object, Object>();
 
-    private static class ByIdentity {
+    private static final ConcurrentMap<Class<?>, Boolean> immutableByClass = new ConcurrentHashMap<Class<?>, Boolean>();
 
-        private final Object wrapped;
+    private static final ConcurrentMap<Class<?>, CopyPlan<?>> plansByClass = new ConcurrentHashMap<Class<?>, CopyPlan<?>>();
 
-        ByIdentity(Object wrapped) {
-            Validate.notNull(wrapped);
-            this.wrapped = wrapped;
+    /**
+     * The information needed to copy the instances of a class. It's computed
+     * only once per class, so the class hierarchy and the annotations are not
+     * inspected on each copied object.
+     */
+    private static class CopyPlan<T> {
+
+        static <T> CopyPlan<T> create(Class<T> klass) {
+            return new CopyPlan<T>(getDefaultConstructor(klass),
+                    getCopiedFields(klass), getAfterCopyHooks(klass));
         }
 
-        @Override
-        public int hashCode() {
-            return wrapped.hashCode();
+        private static <T> Constructor<T> getDefaultConstructor(Class<T> klass) {
+            try {
+                return klass.getConstructor();
+            } catch (SecurityException e) {
+                throw new RuntimeException(e);
+            } catch (NoSuchMethodException e) {
+                throw new IllegalArgumentException(
+                        "could not invoke default no-args constructor for "
+                                + klass, e);
+            }
         }
 
-        @Override
-        public boolean equals(Object obj) {
-            if (this == obj) {
-                return true;
+        private static List<FieldCopy> getCopiedFields(Class<?> klass) {
+            List<FieldCopy> result = new ArrayList<FieldCopy>();
+            Class<?> currentClass = klass;
+            while (currentClass != null) {
+                for (Field each : currentClass.getDeclaredFields()) {
+                    if (!isIgnored(each)) {
+                        each.setAccessible(true);
+                        result.add(new FieldCopy(each, getStrategy(each)));
+                    }
+                }
+                currentClass = currentClass.getSuperclass();
             }
-            if (obj instanceof ByIdentity) {
-                ByIdentity other = (ByIdentity) obj;
-                return this.wrapped == other.wrapped;
+            return result;
+        }
+
+        private static boolean isIgnored(Field field) {
+            return isStatic(field) || isMarkedWithIgnore(field);
+        }
+
+        private static boolean isStatic(Field field) {
+            return Modifier.isStatic(field.getModifiers());
+        }
+
+        private static boolean isMarkedWithIgnore(Field each) {
+            OnCopy onCopy = each.getAnnotation(OnCopy.class);
+            return onCopy != null && onCopy.value() == Strategy.IGNORE;
+        }
+
+        private static Strategy getStrategy(Field field) {
+            OnCopy onCopy = field.getAnnotation(OnCopy.class);
+            return onCopy != null ? onCopy.value() : null;
+        }
+
+        private static List<Method> getAfterCopyHooks(Class<?> klass) {
+            Class<?> current = klass;
+            List<Method> result = new ArrayList<Method>();
+            while (current != null) {
+                for (Method each : current.getDeclaredMethods()) {
+                    if (each.getAnnotation(AfterCopy.class) != null) {
+                        each.setAccessible(true);
+                        result.add(each);
+                    }
+                }
+                current = current.getSuperclass();
+            }
+            return result;
+        }
+
+        private final Constructor<T> constructor;
+
+        private final FieldCopy[] fields;
+
+        private final Method[] afterCopyHooks;
+
+        private CopyPlan(Constructor<T> constructor, List<FieldCopy> fields,
+                List<Method> afterCopyHooks) {
+            this.constructor = constructor;
+            this.fields = fields.toArray(new FieldCopy[0]);
+            this.afterCopyHooks = afterCopyHooks.toArray(new Method[0]);
+        }
+
+        T instantiate() {
+            try {
+                return constructor.newInstance();
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        void copyProperties(DeepCopy deepCopy, Object source, Object target) {
+            for (FieldCopy each : fields) {
+                each.copy(deepCopy, source, target);
+            }
+        }
+
+        void callAfterCopyHooks(Object value) {
+            for (Method each : afterCopyHooks) {
+                try {
+                    each.invoke(value);
+                } catch (Exception e) {
+                    throw new RuntimeException(e);
+                }
+            }
+        }
+    }
+
+    private static class FieldCopy {
+
+        private final Field field;
+
+        private final Strategy strategy;
+
+        FieldCopy(Field field, Strategy strategy) {
+            this.field = field;
+            this.strategy = strategy;
+        }
+
+        void copy(DeepCopy deepCopy, Object source, Object target) {
+            Object sourceValue = readFieldValue(source);
+            if (sourceValue != null) {
+                writeFieldValue(target, deepCopy.copy(sourceValue, strategy));
+            }
+        }
+
+        private Object readFieldValue(Object source) {
+            try {
+                return field.get(source);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        }
+
+        private void writeFieldValue(Object target, Object value) {
+            try {
+                field.set(target, value);
+            } catch (Exception e) {
+                throw new RuntimeException(e);
             }
-            return false;
         }
     }
 
-    private ByIdentity byIdentity(Object value) {
-        return new ByIdentity(value);
+    @SuppressWarnings("unchecked")
+    private static <T> CopyPlan<T> getPlanFor(Class<T> klass) {
+        CopyPlan<T> result = (CopyPlan<T>) plansByClass.get(klass);
+        if (result == null) {
+            result = CopyPlan.create(klass);
+            plansByClass.putIfAbsent(klass, result);
+        }
+        return result;
     }
 
     public <T> T copy(T entity) {
@@ -319,8 +453,8 @@ public class DeepCopy {
             return null;
         }
         T value = desproxify(couldBeProxyValue);
-        if (alreadyCopiedObjects.containsKey(byIdentity(value))) {
-            return (T) alreadyCopiedObjects.get(byIdentity(value));
+        if (alreadyCopiedObjects.containsKey(value)) {
+            return (T) alreadyCopiedObjects.get(value);
         }
         if (Strategy.SHARE == strategy || isImmutable(value)) {
             return value;
@@ -328,14 +462,15 @@ public class DeepCopy {
         ICustomCopy copier = findCopier(value);
         if (copier != null) {
             Object resultData = copier.instantiateCopy(strategy, value);
-            alreadyCopiedObjects.put(byIdentity(value), resultData);
+            alreadyCopiedObjects.put(value, resultData);
             copier.copyDataToResult(this, value, strategy, resultData);
             return (T) resultData;
         }
-        T result = instantiateUsingDefaultConstructor(getTypedClassFrom(value));
-        alreadyCopiedObjects.put(byIdentity(value), result);
-        copyProperties(value, result);
-        callAferCopyHooks(result);
+        CopyPlan<T> plan = getPlanFor(getTypedClassFrom(value));
+        T result = plan.instantiate();
+        alreadyCopiedObjects.put(value, result);
+        plan.copyProperties(this, value, result);
+        plan.callAfterCopyHooks(result);
         return result;
     }
 
@@ -349,7 +484,13 @@ public class DeepCopy {
     }
 
     private boolean isImmutable(Object value) {
-        return isImmutableType(value.getClass());
+        Class<?> klass = value.getClass();
+        Boolean result = immutableByClass.get(klass);
+        if (result == null) {
+            result = isImmutableType(klass);
+            immutableByClass.putIfAbsent(klass, result);
+        }
+        return result;
     }
 
     @SuppressWarnings("unchecked")
@@ -357,87 +498,6 @@ public class DeepCopy {
         return (Class<T>) entity.getClass();
     }
 
-    private <T> T instantiateUsingDefaultConstructor(Class<T> klass) {
-        Constructor<T> constructor;
-        try {
-            constructor = klass.getConstructor();
-        } catch (SecurityException e) {
-            throw new RuntimeException(e);
-        } catch (NoSuchMethodException e) {
-            throw new IllegalArgumentException(
-                    "could not invoke default no-args constructor for "
-                            + klass, e);
-        }
-        try {
-            return constructor.newInstance();
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    private void copyProperties(Object source, Object target) {
-        List<Field> fields = getAllFieldsFor(source);
-        for (Field each : fields) {
-            each.setAccessible(true);
-            if (!isIgnored(each)) {
-                Object sourceValue = readFieldValue(source, each);
-                if (sourceValue != null) {
-                    Strategy strategy = getStrategy(each, sourceValue);
-                    try {
-                        writeFieldValue(target, each, copy(sourceValue, strategy));
-                    } catch (Exception e) {
-                        e.printStackTrace();
-                        throw new RuntimeException(e);
-                    }
-                }
-            }
-        }
-    }
-
-    private List<Field> getAllFieldsFor(Object source) {
-        List<Field> result = new ArrayList<Field>();
-        Class<? extends Object> currentClass = source.getClass();
-        while (currentClass != null) {
-            result.addAll(Arrays.asList(currentClass.getDeclaredFields()));
-            currentClass = currentClass.getSuperclass();
-        }
-        return result;
-    }
-
-    private boolean isIgnored(Field field) {
-        return isStatic(field) || isMarkedWithIgnore(field);
-    }
-
-    private boolean isStatic(Field field) {
-        return Modifier.isStatic(field.getModifiers());
-    }
-
-    private boolean isMarkedWithIgnore(Field each) {
-        OnCopy onCopy = each.getAnnotation(OnCopy.class);
-        return onCopy != null && onCopy.value() == Strategy.IGNORE;
-    }
-
-    private void writeFieldValue(Object target, Field field, Object value) {
-        try {
-            field.set(target, value);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    private Object readFieldValue(Object source, Field field) {
-        try {
-            return field.get(source);
-        } catch (Exception e) {
-            throw new RuntimeException(e);
-        }
-    }
-
-    private Strategy getStrategy(Field field, Object sourceValue) {
-        OnCopy onCopy = field.getAnnotation(OnCopy.class);
-        return onCopy != null ? onCopy.value() : null;
-    }
-
     private ICustomCopy findCopier(Object sourceValue) {
         for (ICustomCopy each : DEFAULT_CUSTOM_COPIERS) {
             if (each.canHandle(sourceValue)) {
@@ -447,45 +507,8 @@ public class DeepCopy {
         return null;
     }
 
-    private void callAferCopyHooks(Object value) {
-        assert value != null;
-        for (Method each : getAfterCopyHooks(value.getClass())) {
-            each.setAccessible(true);
-            try {
-                each.invoke(value);
-            } catch (Exception e) {
-                throw new RuntimeException(e);
-            }
-        }
-    }
-
-    private List<Method> getAfterCopyHooks(Class<?> klass) {
-        Class<?> current = klass;
-        List<Method> result = new ArrayList<Method>();
-        while (current != null) {
-            result.addAll(getAfterCopyDeclaredAt(current));
-            current = current.getSuperclass();
-        }
-        return result;
-    }
-
-    private List<Method> getAfterCopyDeclaredAt(Class<?> klass) {
-        List<Method> result = new ArrayList<Method>();
-        for (Method each : klass.getDeclaredMethods()) {
-            if (isAfterCopyHook(each)) {
-                result.add(each);
-            }
-        }
-        return result;
-    }
-
-    private boolean isAfterCopyHook(Method each) {
-        AfterCopy annotation = each.getAnnotation(AfterCopy.class);
-        return annotation != null;
-    }
-
     public <T> DeepCopy replace(T toBeReplaced, T substitution) {
-        alreadyCopiedObjects.put(byIdentity(toBeReplaced), substitution);
+        alreadyCopiedObjects.put(toBeReplaced, substitution);
         return this;
     }
 }
@@ -21,6 +21,7 @@
 
 package org.libreplan.business.workreports.daos;
 
+import java.util.Collection;
 import java.util.Date;
 import java.util.List;
 
@@ -45,6 +46,13 @@ public interface IWorkReportLineDAO extends
 
     List<WorkReportLine> findByOrderElementAndChildren(OrderElement orderElement);
 
+    /**
+     * Retrieves with a single query the lines of all the order elements
+     * specified. The ones not saved yet are ignored
+     */
+    List<WorkReportLine> findByOrderElements(
+            Collection<? extends OrderElement> orderElements);
+
     List<WorkReportLine> findByOrderElementAndChildren(OrderElement orderElement, boolean sortByDate);
 
     List<WorkReportLine> findFilteredByDate(Date start, Date end);
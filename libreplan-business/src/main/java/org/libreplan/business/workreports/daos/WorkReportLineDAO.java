@@ -63,6 +63,23 @@ public class WorkReportLineDAO extends IntegrationEntityDAO<WorkReportLine>
         return (List<WorkReportLine>) c.list();
     }
 
+    @SuppressWarnings("unchecked")
+    @Override
+    public List<WorkReportLine> findByOrderElements(
+            Collection<? extends OrderElement> orderElements) {
+        List<OrderElement> saved = new ArrayList<OrderElement>();
+        for (OrderElement each : orderElements) {
+            if (!each.isNewObject()) {
+                saved.add(each);
+            }
+        }
+        if (saved.isEmpty()) {
+            return new ArrayList<WorkReportLine>();
+        }
+        return getSession().createCriteria(WorkReportLine.class)
+                .add(Restrictions.in("orderElement", saved)).list();
+    }
+
     @SuppressWarnings("unchecked")
     @Override
     public List<WorkReportLineDTO> findByOrderElementGroupByResourceAndHourTypeAndDate(
@@ -0,0 +1,206 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2013 Igalia, S.L.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.libreplan.business.test.common.daos;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.libreplan.business.BusinessGlobalNames.BUSINESS_SPRING_CONFIG_FILE;
+import static org.libreplan.business.test.BusinessGlobalNames.BUSINESS_SPRING_CONFIG_TEST_FILE;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.libreplan.business.common.IAdHocTransactionService;
+import org.libreplan.business.common.IOnTransaction;
+import org.libreplan.business.common.daos.IEntitySequenceDAO;
+import org.libreplan.business.common.entities.EntityNameEnum;
+import org.libreplan.business.common.entities.EntitySequence;
+import org.libreplan.business.common.exceptions.InstanceNotFoundException;
+import org.libreplan.business.resources.daos.IMachineDAO;
+import org.libreplan.business.resources.entities.Machine;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.test.context.ContextConfiguration;
+import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
+
+/**
+ * Tests for the codes handed out by
+ * {@link IEntitySequenceDAO#getNextEntityCode(EntityNameEnum)}. The codes are
+ * reserved in another transaction, so the data is committed and removed after
+ * each test.
+ */
+@RunWith(SpringJUnit4ClassRunner.class)
+@ContextConfiguration(locations = { BUSINESS_SPRING_CONFIG_FILE,
+        BUSINESS_SPRING_CONFIG_TEST_FILE })
+public class EntitySequenceDAOTest {
+
+    @Autowired
+    private IAdHocTransactionService transactionService;
+
+    @Autowired
+    private IEntitySequenceDAO entitySequenceDAO;
+
+    @Autowired
+    private IMachineDAO machineDAO;
+
+    private List<Machine> createdMachines = new ArrayList<Machine>();
+
+    @Before
+    public void removeSequences() {
+        transactionService.runOnTransaction(new IOnTransaction<Void>() {
+            @Override
+            public Void execute() {
+                for (EntitySequence each : entitySequenceDAO.getAll()) {
+                    try {
+                        entitySequenceDAO.remove(each.getId());
+                    } catch (InstanceNotFoundException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    @After
+    public void removeCreatedData() {
+        removeSequences();
+        transactionService.runOnTransaction(new IOnTransaction<Void>() {
+            @Override
+            public Void execute() {
+                for (Machine each : createdMachines) {
+                    try {
+                        machineDAO.remove(each.getId());
+                    } catch (InstanceNotFoundException e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+                return null;
+            }
+        });
+    }
+
+    private String uniquePrefix() {
+        return "M" + UUID.randomUUID().toString().substring(0, 8) + "-";
+    }
+
+    private EntitySequence givenSavedSequence(String prefix, boolean active) {
+        final EntitySequence result = EntitySequence.create(prefix,
+                EntityNameEnum.MACHINE);
+        result.setActive(active);
+        return save(result);
+    }
+
+    private EntitySequence save(final EntitySequence entitySequence) {
+        transactionService.runOnTransaction(new IOnTransaction<Void>() {
+            @Override
+            public Void execute() {
+                entitySequenceDAO.save(entitySequence);
+                return null;
+            }
+        });
+        return entitySequence;
+    }
+
+    private void givenSavedMachine(String code) {
+        final Machine machine = Machine.create();
+        machine.setCode(code);
+        machine.setName("name");
+        machine.setDescription("description");
+        transactionService.runOnTransaction(new IOnTransaction<Void>() {
+            @Override
+            public Void execute() {
+                machineDAO.save(machine);
+                return null;
+            }
+        });
+        createdMachines.add(machine);
+    }
+
+    private EntitySequence reload(final EntitySequence entitySequence) {
+        return transactionService
+                .runOnReadOnlyTransaction(new IOnTransaction<EntitySequence>() {
+                    @Override
+                    public EntitySequence execute() {
+                        try {
+                            return entitySequenceDAO.find(entitySequence
+                                    .getId());
+                        } catch (InstanceNotFoundException e) {
+                            throw new RuntimeException(e);
+                        }
+                    }
+                });
+    }
+
+    private String nextCode() {
+        return entitySequenceDAO.getNextEntityCode(EntityNameEnum.MACHINE);
+    }
+
+    @Test
+    public void theCodesOfAReservedBlockAreHandedOutInOrder() {
+        String prefix = uniquePrefix();
+        EntitySequence sequence = givenSavedSequence(prefix, true);
+
+        assertEquals(prefix + "0001", nextCode());
+        assertEquals(prefix + "0002", nextCode());
+        assertEquals(prefix + "0003", nextCode());
+
+        // the whole block was reserved with the first code
+        assertEquals(20, reload(sequence).getLastValue().intValue());
+    }
+
+    @Test
+    public void theCodesAlreadyUsedAreSkippedIgnoringTheCase() {
+        String prefix = uniquePrefix();
+        givenSavedSequence(prefix, true);
+        givenSavedMachine((prefix + "0002").toLowerCase());
+
+        assertEquals(prefix + "0001", nextCode());
+        assertEquals(prefix + "0003", nextCode());
+    }
+
+    @Test
+    public void theReservedCodesAreDroppedWhenTheSequenceIsSaved() {
+        String prefix = uniquePrefix();
+        EntitySequence sequence = givenSavedSequence(prefix, true);
+        assertEquals(prefix + "0001", nextCode());
+
+        EntitySequence reloaded = reload(sequence);
+        reloaded.setActive(false);
+        save(reloaded);
+        String newPrefix = uniquePrefix();
+        givenSavedSequence(newPrefix, true);
+
+        assertEquals(newPrefix + "0001", nextCode());
+    }
+
+    @Test
+    public void thereIsNoCodeIfThereIsNoActiveSequence() {
+        givenSavedSequence(uniquePrefix(), false);
+
+        assertNull(nextCode());
+    }
+
+}
@@ -0,0 +1,119 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2013 Igalia, S.L.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.test.costcategories.entities;
+
+import static org.easymock.EasyMock.expect;
+import static org.easymock.classextension.EasyMock.createNiceMock;
+import static org.easymock.classextension.EasyMock.replay;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertThat;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.junit.Test;
+import org.libreplan.business.costcategories.entities.PriceCostIndex;
+import org.libreplan.business.costcategories.entities.PriceCostIndex.PriceCost;
+import org.libreplan.business.costcategories.entities.TypeOfWorkHours;
+import org.libreplan.business.resources.entities.Resource;
+
+public class PriceCostIndexTest {
+
+    private static final LocalDate START = new LocalDate(2013, 1, 1);
+
+    private final List<PriceCost> prices = new ArrayList<PriceCost>();
+
+    private final Resource resource = resource(1L);
+
+    private final TypeOfWorkHours type = type(10L);
+
+    private static Resource resource(Long id) {
+        Resource result = createNiceMock(Resource.class);
+        expect(result.getId()).andReturn(id).anyTimes();
+        replay(result);
+        return result;
+    }
+
+    private static TypeOfWorkHours type(Long id) {
+        TypeOfWorkHours result = createNiceMock(TypeOfWorkHours.class);
+        expect(result.getId()).andReturn(id).anyTimes();
+        replay(result);
+        return result;
+    }
+
+    private void givenPrice(LocalDate assignmentStart,
+            LocalDate assignmentEnd, LocalDate hourCostStart,
+            LocalDate hourCostEnd, int price) {
+        PriceCost priceCost = PriceCost.onBoth(resource.getId(), type.getId(),
+                assignmentStart, assignmentEnd, hourCostStart, hourCostEnd,
+                new BigDecimal(price));
+        if (priceCost != null) {
+            prices.add(priceCost);
+        }
+    }
+
+    @Test
+    public void thePriceIsTheOneValidOnTheDate() {
+        givenPrice(START, null, START, START.plusDays(9), 10);
+        givenPrice(START, null, START.plusDays(10), null, 20);
+        PriceCostIndex index = PriceCostIndex.create(prices);
+
+        assertThat(index.getPriceCost(resource, START, type),
+                equalTo(new BigDecimal(10)));
+        assertThat(index.getPriceCost(resource, START.plusDays(9), type),
+                equalTo(new BigDecimal(10)));
+        assertThat(index.getPriceCost(resource, START.plusDays(10), type),
+                equalTo(new BigDecimal(20)));
+        assertThat(index.getPriceCost(resource, START.plusYears(5), type),
+                equalTo(new BigDecimal(20)));
+    }
+
+    @Test
+    public void thePriceIsOnlyValidWhileTheAssignmentToTheCategoryIs() {
+        givenPrice(START.plusDays(5), START.plusDays(8), START, null, 10);
+        PriceCostIndex index = PriceCostIndex.create(prices);
+
+        assertNull(index.getPriceCost(resource, START.plusDays(4), type));
+        assertThat(index.getPriceCost(resource, START.plusDays(5), type),
+                equalTo(new BigDecimal(10)));
+        assertNull(index.getPriceCost(resource, START.plusDays(9), type));
+    }
+
+    @Test
+    public void thereIsNoPriceIfTheIntervalsDontOverlap() {
+        givenPrice(START, START.plusDays(2), START.plusDays(3), null, 10);
+        PriceCostIndex index = PriceCostIndex.create(prices);
+
+        assertNull(index.getPriceCost(resource, START.plusDays(3), type));
+    }
+
+    @Test
+    public void thereIsNoPriceForOtherResourcesOrTypes() {
+        givenPrice(START, null, START, null, 10);
+        PriceCostIndex index = PriceCostIndex.create(prices);
+
+        assertNull(index.getPriceCost(resource(2L), START, type));
+        assertNull(index.getPriceCost(resource, START, type(11L)));
+    }
+
+}
@@ -27,7 +27,9 @@ import static org.junit.Assert.assertTrue;
 import static org.libreplan.business.BusinessGlobalNames.BUSINESS_SPRING_CONFIG_FILE;
 import static org.libreplan.business.test.BusinessGlobalNames.BUSINESS_SPRING_CONFIG_TEST_FILE;
 
+import java.util.Arrays;
 import java.util.Date;
+import java.util.List;
 import java.util.UUID;
 
 import org.joda.time.LocalDate;
@@ -42,6 +44,9 @@ import org.libreplan.business.common.exceptions.ValidationException;
 import org.libreplan.business.externalcompanies.entities.DeadlineCommunication;
 import org.libreplan.business.orders.daos.IOrderDAO;
 import org.libreplan.business.orders.entities.Order;
+import org.libreplan.business.orders.entities.OrderElement;
+import org.libreplan.business.orders.entities.OrderLine;
+import org.libreplan.business.orders.entities.OrderLineGroup;
 import org.libreplan.business.scenarios.IScenarioManager;
 import org.libreplan.business.scenarios.bootstrap.IScenariosBootstrap;
 import org.libreplan.business.scenarios.entities.OrderVersion;
@@ -183,6 +188,37 @@ public class OrderDAOTest {
         });
     }
 
+    @Test
+    @Transactional
+    public void theOrderOfSeveralElementsIsLoadedAtOnce() {
+        final OrderLine line = OrderLine.createOrderLineWithUnfixedPercentage(10);
+        final OrderLineGroup group = OrderLineGroup.create();
+        final Order order = transactionService
+                .runOnAnotherTransaction(new IOnTransaction<Order>() {
+                    @Override
+                    public Order execute() {
+                        Order result = createValidOrder("order"
+                                + UUID.randomUUID());
+                        group.setName("group");
+                        group.setCode(UUID.randomUUID().toString());
+                        result.add(group);
+                        line.setName("line");
+                        line.setCode(UUID.randomUUID().toString());
+                        group.add(line);
+                        orderDAO.save(result);
+                        orderDAO.flush();
+                        return result;
+                    }
+                });
+
+        List<Order> orders = orderDAO.loadOrdersAvoidingProxyFor(Arrays
+                .<OrderElement> asList(line, group, order));
+        assertThat(orders.size(), equalTo(3));
+        for (Order each : orders) {
+            assertThat(each.getId(), equalTo(order.getId()));
+        }
+    }
+
     @Test(expected = ValidationException.class)
     @Transactional
     public void testSaveTwoOrdersWithSameNames() {
@@ -0,0 +1,173 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2013 Igalia, S.L.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.libreplan.business.test.orders.entities;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.classextension.EasyMock.createNiceMock;
+import static org.easymock.classextension.EasyMock.replay;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.easymock.IAnswer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.libreplan.business.orders.daos.ISumChargedEffortDAO;
+import org.libreplan.business.orders.entities.OrderElement;
+import org.libreplan.business.orders.entities.SumChargedEffortRecalculator;
+import org.springframework.test.util.ReflectionTestUtils;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+/**
+ * Tests the queue of timesheet data recalculations of
+ * {@link SumChargedEffortRecalculator}
+ */
+public class SumChargedEffortRecalculatorTest {
+
+    private SumChargedEffortRecalculator recalculator;
+
+    /**
+     * Ids of the order elements of each recalculation done, in order
+     */
+    private BlockingQueue<Set<Long>> recalculated = new LinkedBlockingQueue<Set<Long>>();
+
+    /**
+     * The recalculations wait for it before finishing
+     */
+    private volatile CountDownLatch finishRecalculations = new CountDownLatch(0);
+
+    @Before
+    @SuppressWarnings("unchecked")
+    public void createRecalculator() {
+        ISumChargedEffortDAO sumChargedEffortDAO = createNiceMock(ISumChargedEffortDAO.class);
+        sumChargedEffortDAO
+                .recalculateTimesheetData((Set<OrderElement>) anyObject());
+        expectLastCall().andAnswer(new IAnswer<Object>() {
+
+            @Override
+            public Object answer() throws Throwable {
+                Set<Long> ids = new HashSet<Long>();
+                for (OrderElement each : (Set<OrderElement>) getCurrentArguments()[0]) {
+                    ids.add(each.getId());
+                }
+                recalculated.add(ids);
+                finishRecalculations.await();
+                return null;
+            }
+        }).anyTimes();
+        replay(sumChargedEffortDAO);
+
+        recalculator = new SumChargedEffortRecalculator();
+        ReflectionTestUtils.setField(recalculator, "sumChargedEffortDAO",
+                sumChargedEffortDAO);
+    }
+
+    @After
+    public void clearTransactionSynchronization() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    private OrderElement orderElement(Long id) {
+        OrderElement result = createNiceMock(OrderElement.class);
+        expect(result.getId()).andReturn(id).anyTimes();
+        replay(result);
+        return result;
+    }
+
+    private Set<OrderElement> set(OrderElement... orderElements) {
+        return new HashSet<OrderElement>(Arrays.asList(orderElements));
+    }
+
+    private Set<Long> ids(Long... ids) {
+        return new HashSet<Long>(Arrays.asList(ids));
+    }
+
+    private Set<Long> nextRecalculation() throws InterruptedException {
+        Set<Long> result = recalculated.poll(5, TimeUnit.SECONDS);
+        if (result == null) {
+            throw new AssertionError("no recalculation done");
+        }
+        return result;
+    }
+
+    @Test
+    public void theElementsMarkedDuringARecalculationAreRecalculatedTogetherOnlyOnce()
+            throws InterruptedException {
+        finishRecalculations = new CountDownLatch(1);
+        recalculator.recalculateTimesheetData(set(orderElement(1L)));
+        assertThat(nextRecalculation(), equalTo(ids(1L)));
+
+        recalculator.recalculateTimesheetData(set(orderElement(2L)));
+        recalculator.recalculateTimesheetData(set(orderElement(2L),
+                orderElement(3L)));
+        finishRecalculations.countDown();
+        assertThat(nextRecalculation(), equalTo(ids(2L, 3L)));
+
+        // no other recalculation was queued before this one
+        recalculator.recalculateTimesheetData(set(orderElement(4L)));
+        assertThat(nextRecalculation(), equalTo(ids(4L)));
+    }
+
+    @Test
+    public void theRecalculationWaitsForTheCommit()
+            throws InterruptedException {
+        TransactionSynchronizationManager.initSynchronization();
+        recalculator.recalculateTimesheetData(set(orderElement(1L)));
+        assertTrue(recalculated.isEmpty());
+
+        for (TransactionSynchronization each : TransactionSynchronizationManager
+                .getSynchronizations()) {
+            each.afterCommit();
+        }
+        assertThat(nextRecalculation(), equalTo(ids(1L)));
+    }
+
+    @Test
+    public void nothingIsRecalculatedIfTheTransactionIsRolledBack()
+            throws InterruptedException {
+        TransactionSynchronizationManager.initSynchronization();
+        recalculator.recalculateTimesheetData(set(orderElement(1L)));
+        for (TransactionSynchronization each : TransactionSynchronizationManager
+                .getSynchronizations()) {
+            each.afterCompletion(TransactionSynchronization.STATUS_ROLLED_BACK);
+        }
+        TransactionSynchronizationManager.clearSynchronization();
+
+        recalculator.recalculateTimesheetData(set(orderElement(2L)));
+        assertThat(nextRecalculation(), equalTo(ids(2L)));
+    }
+
+}
@@ -0,0 +1,138 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2013 Igalia, S.L.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.test.planner.chart;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.classextension.EasyMock.createNiceMock;
+import static org.easymock.classextension.EasyMock.replay;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.libreplan.business.workingday.EffortDuration.hours;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import org.joda.time.LocalDate;
+import org.junit.Test;
+import org.libreplan.business.calendars.entities.ICalendar;
+import org.libreplan.business.planner.chart.ResourceLoadChartData;
+import org.libreplan.business.planner.chart.ResourceLoadCube;
+import org.libreplan.business.planner.entities.DayAssignment;
+import org.libreplan.business.resources.entities.Resource;
+import org.libreplan.business.workingday.EffortDuration;
+import org.libreplan.business.workingday.IntraDayDate.PartialDay;
+
+public class ResourceLoadCubeTest {
+
+    private static final LocalDate START = new LocalDate(2013, 1, 7);
+
+    private final List<DayAssignment> assignments = new ArrayList<DayAssignment>();
+
+    private Resource givenResource(long id, int hoursPerDay) {
+        ICalendar calendar = createNiceMock(ICalendar.class);
+        expect(calendar.getCapacityOn(anyObject(PartialDay.class)))
+                .andReturn(hours(hoursPerDay)).anyTimes();
+        replay(calendar);
+        Resource result = createNiceMock(Resource.class);
+        expect(result.getId()).andReturn(id).anyTimes();
+        expect(result.getCalendarOrDefault()).andReturn(calendar).anyTimes();
+        replay(result);
+        return result;
+    }
+
+    private void givenAssignment(Resource resource, LocalDate day,
+            EffortDuration duration) {
+        DayAssignment result = createNiceMock(DayAssignment.class);
+        expect(result.getResource()).andReturn(resource).anyTimes();
+        expect(result.getDay()).andReturn(day).anyTimes();
+        expect(result.getDuration()).andReturn(duration).anyTimes();
+        replay(result);
+        assignments.add(result);
+    }
+
+    @Test
+    public void theAssignmentsOfTheSameResourceAndDayAreAdded() {
+        Resource resource = givenResource(1, 8);
+        givenAssignment(resource, START, hours(3));
+        givenAssignment(resource, START, hours(2));
+        ResourceLoadCube cube = ResourceLoadCube.create(assignments);
+        assertThat(cube.getLoadFor(resource).get(START), equalTo(hours(5)));
+    }
+
+    @Test
+    public void theSliceOnlyIncludesTheResourcesRequested() {
+        Resource first = givenResource(1, 8);
+        Resource second = givenResource(2, 8);
+        givenAssignment(first, START, hours(10));
+        givenAssignment(second, START, hours(4));
+        ResourceLoadCube cube = ResourceLoadCube.create(assignments);
+
+        ResourceLoadChartData data = cube.sliceFor(Arrays.asList(first),
+                null, null);
+        assertThat(data.getLoad().get(START), equalTo(hours(8)));
+        assertThat(data.getAvailability().get(START), equalTo(hours(8)));
+        assertThat(data.getOverload().get(START), equalTo(hours(10)));
+    }
+
+    @Test
+    public void theSliceIsRestrictedToTheInterval() {
+        Resource resource = givenResource(1, 8);
+        for (int i = 0; i < 10; i++) {
+            givenAssignment(resource, START.plusDays(i), hours(4));
+        }
+        ResourceLoadCube cube = ResourceLoadCube.create(assignments);
+
+        ResourceLoadChartData data = cube.sliceFor(Arrays.asList(resource),
+                START.plusDays(2), START.plusDays(5));
+        assertThat(data.getLoad().size(), equalTo(3));
+        assertThat(data.getLoad().firstKey(), equalTo(START.plusDays(2)));
+    }
+
+    @Test
+    public void eachBoundOfTheIntervalIsAppliedOnItsOwn() {
+        Resource resource = givenResource(1, 8);
+        for (int i = 0; i < 10; i++) {
+            givenAssignment(resource, START.plusDays(i), hours(4));
+        }
+        ResourceLoadCube cube = ResourceLoadCube.create(assignments);
+
+        ResourceLoadChartData fromStart = cube.sliceFor(
+                Arrays.asList(resource), START.plusDays(2), null);
+        assertThat(fromStart.getLoad().firstKey(), equalTo(START.plusDays(2)));
+        assertThat(fromStart.getLoad().lastKey(), equalTo(START.plusDays(9)));
+
+        ResourceLoadChartData untilEnd = cube.sliceFor(
+                Arrays.asList(resource), null, START.plusDays(5));
+        assertThat(untilEnd.getLoad().firstKey(), equalTo(START));
+        assertThat(untilEnd.getLoad().lastKey(), equalTo(START.plusDays(4)));
+    }
+
+    @Test
+    public void theSliceIsEmptyIfTheResourcesHaveNoLoad() {
+        Resource resource = givenResource(1, 8);
+        ResourceLoadCube cube = ResourceLoadCube.create(assignments);
+        assertTrue(cube.sliceFor(Arrays.asList(resource), null, null)
+                .getLoad().isEmpty());
+    }
+
+}
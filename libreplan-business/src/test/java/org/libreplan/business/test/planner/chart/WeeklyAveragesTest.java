@@ -0,0 +1,87 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2013 Igalia, S.L.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+package org.libreplan.business.test.planner.chart;
+
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
+import static org.junit.Assert.assertTrue;
+import static org.libreplan.business.workingday.EffortDuration.hours;
+
+import java.util.SortedMap;
+import java.util.TreeMap;
+
+import org.joda.time.LocalDate;
+import org.junit.Test;
+import org.libreplan.business.planner.chart.WeeklyAverages;
+import org.libreplan.business.workingday.EffortDuration;
+
+public class WeeklyAveragesTest {
+
+    // it's a monday
+    private static final LocalDate MONDAY = new LocalDate(2013, 1, 7);
+
+    private static final LocalDate THURSDAY = MONDAY.plusDays(3);
+
+    private SortedMap<LocalDate, EffortDuration> givenWorkingDays(int weeks) {
+        SortedMap<LocalDate, EffortDuration> result = new TreeMap<LocalDate, EffortDuration>();
+        for (int week = 0; week < weeks; week++) {
+            for (int day = 0; day < 5; day++) {
+                result.put(MONDAY.plusWeeks(week).plusDays(day), hours(7));
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void eachWeekIsRepresentedByItsThursday() {
+        for (int i = 0; i < 7; i++) {
+            assertThat(WeeklyAverages.getThursdayOfThisWeek(MONDAY.plusDays(i)),
+                    equalTo(THURSDAY));
+        }
+    }
+
+    @Test
+    public void theValuesOfTheWeekAreAveraged() {
+        SortedMap<LocalDate, EffortDuration> byWeek = WeeklyAverages
+                .of(givenWorkingDays(2));
+        assertThat(byWeek.size(), equalTo(2));
+        assertThat(byWeek.get(THURSDAY), equalTo(hours(5)));
+        assertThat(byWeek.get(THURSDAY.plusWeeks(1)), equalTo(hours(5)));
+    }
+
+    @Test
+    public void theWeeksPartiallyInTheIntervalAreIncluded() {
+        SortedMap<LocalDate, EffortDuration> byWeek = WeeklyAverages
+                .of(givenWorkingDays(4));
+        SortedMap<LocalDate, EffortDuration> sliced = WeeklyAverages.weeksIn(
+                byWeek, MONDAY.plusDays(6), MONDAY.plusWeeks(2).plusDays(1));
+        assertThat(sliced.size(), equalTo(3));
+        assertThat(sliced.firstKey(), equalTo(THURSDAY));
+        assertThat(sliced.lastKey(), equalTo(THURSDAY.plusWeeks(2)));
+    }
+
+    @Test
+    public void anEmptyIntervalHasNoWeeks() {
+        SortedMap<LocalDate, EffortDuration> byWeek = WeeklyAverages
+                .of(givenWorkingDays(2));
+        assertTrue(WeeklyAverages.weeksIn(byWeek, MONDAY, MONDAY).isEmpty());
+    }
+
+}
@@ -388,4 +388,18 @@ public class DeepCopyTest {
         assertNotSame(copied.getSet1(), copied.getSet2());
     }
 
+    @Test
+    public void differentCopiesOfTheSameClassAreIndependent() {
+        EntityA first = new EntityA();
+        first.setDate(new Date(1000));
+        EntityA second = new EntityA();
+        second.setDate(new Date(2000));
+        EntityA firstCopy = new DeepCopy().copy(first);
+        EntityA secondCopy = new DeepCopy().copy(second);
+        assertThat(firstCopy.getDate(), equalTo(new Date(1000)));
+        assertThat(secondCopy.getDate(), equalTo(new Date(2000)));
+        assertTrue(firstCopy.isFirstHookCalled());
+        assertTrue(secondCopy.isFirstHookCalled());
+    }
+
 }
@@ -24,6 +24,7 @@ import static org.libreplan.web.I18nHelper._;
 import java.util.ArrayList;
 import java.util.Collections;
 import java.util.Date;
+import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -82,6 +83,9 @@ public class ExportTimesheetsToTim implements IExportTimesheetsToTim {
     @Autowired
     private IConnectorDAO connectorDAO;
 
+    @Autowired
+    private TimExportedDays exportedDays;
+
     private SynchronizationInfo synchronizationInfo;
 
     @Override
@@ -111,7 +115,7 @@ public class ExportTimesheetsToTim implements IExportTimesheetsToTim {
         for (OrderSyncInfo orderSyncInfo : orderSyncInfos) {
             LOG.info("Exporting '" + orderSyncInfo.getOrder().getName() + "'");
             exportTimesheets(orderSyncInfo.getKey(), orderSyncInfo.getOrder(),
-                    connector);
+                    connector, true);
             if (!synchronizationInfo.isSuccessful()) {
                 syncInfos.add(synchronizationInfo);
             }
@@ -140,7 +144,7 @@ public class ExportTimesheetsToTim implements IExportTimesheetsToTim {
                     _("Connection values of Tim connector are invalid"));
         }
 
-        exportTimesheets(productCode, order, connector);
+        exportTimesheets(productCode, order, connector, false);
     }
 
     /**
@@ -152,11 +156,12 @@ public class ExportTimesheetsToTim implements IExportTimesheetsToTim {
      *            the order
      * @param connector
      *            the connector
-     *
-     * @return true if export is succeeded, false otherwise
+     * @param onlyChanged
+     *            if true, only the days with work report lines changed since
+     *            the last successful export are sent
      */
     private void exportTimesheets(String productCode, Order order,
-            Connector connector) {
+            Connector connector, boolean onlyChanged) {
 
         synchronizationInfo = new SynchronizationInfo(_(
                 "Export product code {0}, project {1}", productCode,
@@ -187,13 +192,30 @@ public class ExportTimesheetsToTim implements IExportTimesheetsToTim {
             return;
         }
 
+        String exportKey = productCode + "@" + order.getId();
+        Map<String, String> versionsByDay = getVersionsByWorkerAndDay(workReportLines);
+        if (onlyChanged) {
+            workReportLines = getChangedLines(workReportLines, versionsByDay,
+                    exportedDays.get(exportKey));
+            if (workReportLines.isEmpty()) {
+                LOG.info("No work reportlines changed since last export for order: '"
+                        + order.getName() + "'");
+                saveSyncInfoOnAnotherTransaction(productCode, order);
+                return;
+            }
+        }
+
         List<TimeRegistrationDTO> timeRegistrationDTOs = new ArrayList<TimeRegistrationDTO>();
+        Map<String, Worker> workersByCode = new HashMap<String, Worker>();
 
         for (WorkReportLine workReportLine : workReportLines) {
             TimeRegistrationDTO timeRegistrationDTO = createExportTimeRegistration(
-                    productCode, workReportLine);
+                    productCode, workReportLine, workersByCode);
             if (timeRegistrationDTO != null) {
                 timeRegistrationDTOs.add(timeRegistrationDTO);
+            } else {
+                // not exported, so it's sent again on next run
+                versionsByDay.remove(getWorkerAndDayKey(workReportLine));
             }
         }
 
@@ -224,9 +246,55 @@ public class ExportTimesheetsToTim implements IExportTimesheetsToTim {
                     .addFailedReason(_("Registration response with empty refs"));
             return;
         }
+        exportedDays.put(exportKey, versionsByDay);
         saveSyncInfoOnAnotherTransaction(productCode, order);
     }
 
+    /**
+     * Tim registers the time per person and day, so all the lines of a worker
+     * on a day are sent again if any of them has changed
+     *
+     * @return the ids and versions of the lines, by worker and day
+     */
+    private static Map<String, String> getVersionsByWorkerAndDay(
+            List<WorkReportLine> workReportLines) {
+        Map<String, String> result = new HashMap<String, String>();
+        for (WorkReportLine each : workReportLines) {
+            String key = getWorkerAndDayKey(each);
+            String version = each.getId() + ":" + each.getVersion();
+            String previous = result.get(key);
+            result.put(key, previous == null ? version : previous + ","
+                    + version);
+        }
+        return result;
+    }
+
+    private static String getWorkerAndDayKey(WorkReportLine workReportLine) {
+        return workReportLine.getResource().getCode() + "/"
+                + workReportLine.getLocalDate();
+    }
+
+    /**
+     * Returns the lines of the days whose <code>current</code> versions are
+     * different from the <code>exported</code> ones, or all of them if there
+     * is no previous export
+     */
+    private static List<WorkReportLine> getChangedLines(
+            List<WorkReportLine> workReportLines, Map<String, String> current,
+            Map<String, String> exported) {
+        if (exported == null) {
+            return workReportLines;
+        }
+        List<WorkReportLine> result = new ArrayList<WorkReportLine>();
+        for (WorkReportLine each : workReportLines) {
+            String key = getWorkerAndDayKey(each);
+            if (!current.get(key).equals(exported.get(key))) {
+                result.add(each);
+            }
+        }
+        return result;
+    }
+
     /**
      * checks if list of refs is empty
      *
@@ -278,18 +346,18 @@ public class ExportTimesheetsToTim implements IExportTimesheetsToTim {
      *            the product code
      * @param workReportLine
      *            the workreportLine
+     * @param workersByCode
+     *            the workers already searched, <code>null</code> if not found
      * @return timeRegistration DTO
      */
     private TimeRegistrationDTO createExportTimeRegistration(String productCode,
-            WorkReportLine workReportLine) {
-        Worker worker;
+            WorkReportLine workReportLine, Map<String, Worker> workersByCode) {
         String workerCode = workReportLine.getResource().getCode();
-        try {
-            worker = workerDAO.findByCode(workerCode);
-        } catch (InstanceNotFoundException e) {
-            LOG.warn("Worker '" + workerCode + "' not found");
-            synchronizationInfo.addFailedReason(_("Worker \"{0}\" not found",
-                    workerCode));
+        if (!workersByCode.containsKey(workerCode)) {
+            workersByCode.put(workerCode, findWorker(workerCode));
+        }
+        Worker worker = workersByCode.get(workerCode);
+        if (worker == null) {
             return null;
         }
 
@@ -318,6 +386,17 @@ public class ExportTimesheetsToTim implements IExportTimesheetsToTim {
         return timeRegistrationDTO;
     }
 
+    private Worker findWorker(String workerCode) {
+        try {
+            return workerDAO.findByCode(workerCode);
+        } catch (InstanceNotFoundException e) {
+            LOG.warn("Worker '" + workerCode + "' not found");
+            synchronizationInfo.addFailedReason(_("Worker \"{0}\" not found",
+                    workerCode));
+            return null;
+        }
+    }
+
     @Override
     @Transactional(readOnly = true)
     public OrderSyncInfo getOrderLastSyncInfo(Order order) {
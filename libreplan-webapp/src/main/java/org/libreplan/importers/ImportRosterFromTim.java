@@ -33,7 +33,6 @@ import org.apache.commons.logging.Log;
 import org.apache.commons.logging.LogFactory;
 import org.joda.time.LocalDate;
 import org.libreplan.business.calendars.daos.ICalendarExceptionTypeDAO;
-import org.libreplan.business.calendars.entities.CalendarException;
 import org.libreplan.business.calendars.entities.CalendarExceptionType;
 import org.libreplan.business.calendars.entities.Capacity;
 import org.libreplan.business.calendars.entities.PredefinedCalendarExceptionTypes;
@@ -48,7 +47,6 @@ import org.libreplan.business.common.entities.PredefinedConnectors;
 import org.libreplan.business.common.exceptions.InstanceNotFoundException;
 import org.libreplan.business.resources.daos.IWorkerDAO;
 import org.libreplan.business.resources.entities.Worker;
-import org.libreplan.business.workingday.EffortDuration;
 import org.libreplan.importers.RosterException.RosterExceptionItem;
 import org.libreplan.importers.tim.DataDTO;
 import org.libreplan.importers.tim.DepartmentDTO;
@@ -114,6 +112,12 @@ public class ImportRosterFromTim implements IImportRosterFromTim {
      */
     private static final String BANK_HOLIDAY = "Feestdag";
 
+    /**
+     * Maximum number of days of roster requested to Tim at once, so the
+     * response for long periods is received and applied in chunks
+     */
+    private static final int ROSTER_DAYS_PER_REQUEST = 30;
+
 
     @Override
     @Transactional
@@ -164,15 +168,8 @@ public class ImportRosterFromTim implements IImportRosterFromTim {
             synchronizationInfo = new SynchronizationInfo(_(
                     "Import roster for department {0}", department));
 
-            RosterRequestDTO rosterRequestDTO = createRosterRequest(department,
-                    nrDaysRosterFromTim);
-            RosterResponseDTO rosterResponseDTO = TimSoapClient
-                    .sendRequestReceiveResponse(url, userName, password,
-                            rosterRequestDTO, RosterResponseDTO.class);
-
-            if (rosterResponseDTO != null) {
-                updateWorkersCalendarException(rosterResponseDTO,
-                        productivityFactor);
+            if (importRosters(url, userName, password, department,
+                    nrDaysRosterFromTim, productivityFactor)) {
                 if (!synchronizationInfo.isSuccessful()) {
                     syncInfos.add(synchronizationInfo);
                 }
@@ -187,29 +184,69 @@ public class ImportRosterFromTim implements IImportRosterFromTim {
         return syncInfos;
     }
 
+    /**
+     * Requests the roster of the <code>department</code> for the next
+     * <code>nrDaysRosterFromTim</code> days in chunks of
+     * {@link #ROSTER_DAYS_PER_REQUEST} days, updating the workers calendar
+     * exceptions of each chunk as it's received
+     *
+     * @return false if there was no valid response for some chunk
+     */
+    private boolean importRosters(String url, String userName,
+            String password, String department, int nrDaysRosterFromTim,
+            int productivityFactor) {
+        LocalDate end = new LocalDate().plusDays(nrDaysRosterFromTim);
+        LocalDate chunkStart = new LocalDate();
+        boolean anyRosterException = false;
+        do {
+            LocalDate chunkEnd = chunkStart
+                    .plusDays(ROSTER_DAYS_PER_REQUEST - 1);
+            if (chunkEnd.isAfter(end)) {
+                chunkEnd = end;
+            }
+            RosterRequestDTO rosterRequestDTO = createRosterRequest(
+                    department, chunkStart, chunkEnd);
+            RosterResponseDTO rosterResponseDTO = TimSoapClient
+                    .sendRequestReceiveResponse(url, userName, password,
+                            rosterRequestDTO, RosterResponseDTO.class);
+            if (rosterResponseDTO == null) {
+                return false;
+            }
+            anyRosterException |= updateWorkersCalendarException(
+                    rosterResponseDTO, productivityFactor);
+            // both dates are included in the request
+            chunkStart = chunkEnd.plusDays(1);
+        } while (!chunkStart.isAfter(end));
+
+        if (!anyRosterException) {
+            LOG.info("No roster-exceptions found in the response");
+            synchronizationInfo
+                    .addFailedReason(_("No roster-exceptions found in the response"));
+        }
+        return true;
+    }
+
     /**
      * updates workers Exception calendar
      *
      * @param rosterResponse
      *            the response from Tim SOAP server
+     * @return true if the response had any roster exception
      */
-    private void updateWorkersCalendarException(
+    private boolean updateWorkersCalendarException(
             final RosterResponseDTO rosterResponse, final int productivityFactor) {
-        adHocTransactionService
-                .runOnAnotherTransaction(new IOnTransaction<Void>() {
+        return adHocTransactionService
+                .runOnAnotherTransaction(new IOnTransaction<Boolean>() {
 
                     @Override
-                    public Void execute() {
+                    public Boolean execute() {
                         List<RosterException> rosterExceptions = getRosterExceptions(
                                 rosterResponse, productivityFactor);
-                        if (!rosterExceptions.isEmpty()) {
-                            updateCalendarException(rosterExceptions);
-                        } else {
-                            LOG.info("No roster-exceptions found in the response");
-                            synchronizationInfo
-                                    .addFailedReason(_("No roster-exceptions found in the response"));
+                        if (rosterExceptions.isEmpty()) {
+                            return false;
                         }
-                        return null;
+                        updateCalendarException(rosterExceptions);
+                        return true;
                     }
                 });
     }
@@ -290,49 +327,58 @@ public class ImportRosterFromTim implements IImportRosterFromTim {
      *            list of roster exceptions
      */
     private void updateCalendarException(List<RosterException> rosterExceptions) {
+        Map<String, CalendarExceptionType> typesByName = new HashMap<String, CalendarExceptionType>();
         for (RosterException rosterException : rosterExceptions) {
-            List<RosterExceptionItem> items = rosterException
-                    .getRosterExceptionItems();
-            for (RosterExceptionItem item : items) {
-                updateCalendarExceptionPerWorker(rosterException.getWorker(),
-                        item.getDate(), item.getExceptionType(),
-                        item.getEffortDuration());
-            }
+            updateCalendarExceptionPerWorker(rosterException.getWorker(),
+                    rosterException.getRosterExceptionItems(), typesByName);
         }
     }
 
 
     /**
-     * updates the calendar exception of the specified
-     * <code>{@link Worker}</code> for the specified <code>date</code>
+     * updates the calendar exceptions of the specified
+     * <code>{@link Worker}</code> for all the <code>items</code>, saving its
+     * calendar once
      *
      * @param worker
      *            the worker
-     * @param date
-     *            the date of the exception
-     * @param exceptionName
-     *            the exception name
-     * @param effortDuration
-     *            the exceptions effortDurtaion
+     * @param items
+     *            the roster exceptions of the worker
+     * @param typesByName
+     *            the calendar exception types already searched
      */
     private void updateCalendarExceptionPerWorker(Worker worker,
-            LocalDate date, String exceptionName, EffortDuration effortDuration) {
-        CalendarExceptionType calendarExceptionType = getCalendarExceptionType(exceptionName);
-        if (calendarExceptionType == null) {
-            return;
-        }
+            List<RosterExceptionItem> items,
+            Map<String, CalendarExceptionType> typesByName) {
         ResourceCalendar resourceCalendar = (ResourceCalendar) worker
                 .getCalendarOrDefault();
-        CalendarException calendarExceptionDay = resourceCalendar
-                .getExceptionDay(date);
-        Capacity capacity = Capacity.create(effortDuration);
-        if (calendarExceptionDay != null) {
-            resourceCalendar.removeExceptionDay(calendarExceptionDay.getDate());
-        }
         baseCalendarModel.initEdit(resourceCalendar);
-        baseCalendarModel.updateException(calendarExceptionType, date, date,
-                capacity);
-        baseCalendarModel.confirmSave();
+        boolean updated = false;
+        for (RosterExceptionItem item : items) {
+            CalendarExceptionType calendarExceptionType = getCalendarExceptionType(
+                    item.getExceptionType(), typesByName);
+            if (calendarExceptionType == null) {
+                continue;
+            }
+            LocalDate date = item.getDate();
+            if (resourceCalendar.getExceptionDay(date) != null) {
+                baseCalendarModel.removeException(date);
+            }
+            baseCalendarModel.updateException(calendarExceptionType, date,
+                    date, Capacity.create(item.getEffortDuration()));
+            updated = true;
+        }
+        if (updated) {
+            baseCalendarModel.confirmSave();
+        }
+    }
+
+    private CalendarExceptionType getCalendarExceptionType(String name,
+            Map<String, CalendarExceptionType> typesByName) {
+        if (!typesByName.containsKey(name)) {
+            typesByName.put(name, getCalendarExceptionType(name));
+        }
+        return typesByName.get(name);
     }
 
     /**
@@ -378,17 +424,18 @@ public class ImportRosterFromTim implements IImportRosterFromTim {
     /**
      * creates and returns {@link RosterRequestDTO}
      *
-     * @param nrDaysRosterFromTim
-     *            nr of days required to set the end date
+     * @param startDate
+     *            the first day of the roster
+     * @param endDate
+     *            the last day of the roster
      */
     private RosterRequestDTO createRosterRequest(String department,
-            int nrDaysRosterFromTim) {
-        RosterDTO rosterDTO = createRoster(nrDaysRosterFromTim);
+            LocalDate startDate, LocalDate endDate) {
+        RosterDTO rosterDTO = createRoster(startDate, endDate);
 
         PeriodDTO periodeDTO = new PeriodDTO();
-        periodeDTO.setStart(new org.joda.time.DateTime());
-        periodeDTO.setEnd(new org.joda.time.DateTime()
-                .plusDays(nrDaysRosterFromTim));
+        periodeDTO.setStart(startDate.toDateTimeAtStartOfDay());
+        periodeDTO.setEnd(endDate.toDateTimeAtStartOfDay());
         List<PeriodDTO> periodDTOs = new ArrayList<PeriodDTO>();
         periodDTOs.add(periodeDTO);
 
@@ -450,10 +497,10 @@ public class ImportRosterFromTim implements IImportRosterFromTim {
     /**
      * creates and returns {@link RosterDTO}
      */
-    private RosterDTO createRoster(int nrDaysRosterFromTim) {
+    private RosterDTO createRoster(LocalDate startDate, LocalDate endDate) {
         RosterDTO rosterDTO = new RosterDTO();
-        rosterDTO.setStartDate(new LocalDate());
-        rosterDTO.setEndDate(new LocalDate().plusDays(nrDaysRosterFromTim));
+        rosterDTO.setStartDate(startDate);
+        rosterDTO.setEndDate(endDate);
         rosterDTO.setResourcePlanning(false);
         rosterDTO.setDayPlanning(false);
         rosterDTO.setCalendar(false);
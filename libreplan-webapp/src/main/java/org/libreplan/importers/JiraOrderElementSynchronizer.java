@@ -31,6 +31,11 @@ import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 import org.apache.commons.lang.StringUtils;
 import org.apache.commons.logging.Log;
@@ -80,6 +85,11 @@ public class JiraOrderElementSynchronizer implements IJiraOrderElementSynchroniz
     private static final Log LOG = LogFactory
             .getLog(JiraOrderElementSynchronizer.class);
 
+    /**
+     * Max number of searches sent to JIRA at the same time
+     */
+    private static final int MAX_CONCURRENT_SEARCHES = 4;
+
     private SynchronizationInfo synchronizationInfo;
 
     @Autowired
@@ -145,7 +155,22 @@ public class JiraOrderElementSynchronizer implements IJiraOrderElementSynchroniz
      * @return a list of {@link IssueDTO}
      */
     private List<IssueDTO> getJiraIssues(String label, Connector connector) {
-        Map<String, String> properties = connector.getPropertiesAsMap();
+        return searchJiraIssues("labels=" + label,
+                connector.getPropertiesAsMap());
+    }
+
+    /**
+     * Gets the jira issues matching the <code>query</code>. It doesn't access
+     * the database, so it can be run outside the synchronization thread
+     *
+     * @param query
+     *            the jql query
+     * @param properties
+     *            the properties of the JIRA connector
+     * @return a list of {@link IssueDTO}
+     */
+    private static List<IssueDTO> searchJiraIssues(String query,
+            Map<String, String> properties) {
         String url = properties.get(PredefinedConnectorProperties.SERVER_URL);
 
         String username = properties
@@ -155,7 +180,6 @@ public class JiraOrderElementSynchronizer implements IJiraOrderElementSynchroniz
                 .get(PredefinedConnectorProperties.PASSWORD);
 
         String path = JiraRESTClient.PATH_SEARCH;
-        String query = "labels=" + label;
 
         List<IssueDTO> issues = JiraRESTClient.getIssues(url, username, password,
                 path, query);
@@ -163,6 +187,60 @@ public class JiraOrderElementSynchronizer implements IJiraOrderElementSynchroniz
         return issues;
     }
 
+    /**
+     * Builds the query for the issues of <code>orderSyncInfo</code> updated
+     * since the day before the last synchronization. The day of margin avoids
+     * missing updates due to the time zone of the JIRA server, synchronizing
+     * again an issue is harmless
+     */
+    private static String getUpdatedIssuesQuery(OrderSyncInfo orderSyncInfo) {
+        String query = "labels=" + orderSyncInfo.getKey();
+        if (orderSyncInfo.getLastSyncDate() == null) {
+            return query;
+        }
+        LocalDate since = LocalDate.fromDateFields(
+                orderSyncInfo.getLastSyncDate()).minusDays(1);
+        return query + " AND updated>=\"" + since.toString("yyyy/MM/dd")
+                + "\"";
+    }
+
+    /**
+     * Launches the searches of the issues of all the
+     * <code>orderSyncInfos</code>, at most {@link #MAX_CONCURRENT_SEARCHES}
+     * at the same time
+     */
+    private List<Future<List<IssueDTO>>> searchUpdatedIssues(
+            ExecutorService executor, List<OrderSyncInfo> orderSyncInfos,
+            final Map<String, String> properties) {
+        List<Future<List<IssueDTO>>> result = new ArrayList<Future<List<IssueDTO>>>();
+        for (OrderSyncInfo each : orderSyncInfos) {
+            final String query = getUpdatedIssuesQuery(each);
+            result.add(executor.submit(new Callable<List<IssueDTO>>() {
+
+                @Override
+                public List<IssueDTO> call() {
+                    return searchJiraIssues(query, properties);
+                }
+            }));
+        }
+        return result;
+    }
+
+    private static List<IssueDTO> getSearchResult(
+            Future<List<IssueDTO>> search) {
+        try {
+            return search.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+    }
+
     @Override
     @Transactional(readOnly = true)
     public void syncOrderElementsWithJiraIssues(List<IssueDTO> issues, Order order) {
@@ -526,39 +604,47 @@ public class JiraOrderElementSynchronizer implements IJiraOrderElementSynchroniz
             return syncInfos;
         }
 
-        for (OrderSyncInfo orderSyncInfo : orderSyncInfos) {
-            Order order = orderSyncInfo.getOrder();
-            LOG.info("Synchronizing '" + order.getName() + "'");
-            synchronizationInfo = new SynchronizationInfo(_(
-                    "Synchronization order {0}", order.getName()));
-
-            List<IssueDTO> issueDTOs = getJiraIssues(orderSyncInfo.getKey(),
-                    connector);
-            if (issueDTOs == null || issueDTOs.isEmpty()) {
-                LOG.warn("No JIRA issues found for '" + orderSyncInfo.getKey()
-                        + "'");
-                synchronizationInfo.addFailedReason(_(
-                        "No JIRA issues found for key {0}",
-                        orderSyncInfo.getKey()));
-                syncInfos.add(synchronizationInfo);
-                continue;
-            }
-
-            orderModel.initEdit(order, null);
-            syncOrderElementsWithJiraIssues(issueDTOs, order);
-            if (!synchronizationInfo.isSuccessful()) {
-                syncInfos.add(synchronizationInfo);
-                continue;
-            }
-            orderModel.save(false);
-
-            saveSyncInfo(orderSyncInfo.getKey(), order);
-
-            jiraTimesheetSynchronizer.syncJiraTimesheetWithJiraIssues(
-                    issueDTOs, order);
-            if (!synchronizationInfo.isSuccessful()) {
-                syncInfos.add(synchronizationInfo);
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(
+                MAX_CONCURRENT_SEARCHES, orderSyncInfos.size()));
+        try {
+            List<Future<List<IssueDTO>>> searches = searchUpdatedIssues(
+                    executor, orderSyncInfos, connector.getPropertiesAsMap());
+
+            for (int i = 0; i < orderSyncInfos.size(); i++) {
+                OrderSyncInfo orderSyncInfo = orderSyncInfos.get(i);
+                Order order = orderSyncInfo.getOrder();
+                LOG.info("Synchronizing '" + order.getName() + "'");
+                synchronizationInfo = new SynchronizationInfo(_(
+                        "Synchronization order {0}", order.getName()));
+
+                List<IssueDTO> issueDTOs = getSearchResult(searches.get(i));
+                // don't keep the issues of the orders already synchronized
+                searches.set(i, null);
+                if (issueDTOs == null || issueDTOs.isEmpty()) {
+                    LOG.info("No JIRA issues updated for '"
+                            + orderSyncInfo.getKey() + "' since "
+                            + orderSyncInfo.getLastSyncDate());
+                    continue;
+                }
+
+                orderModel.initEdit(order, null);
+                syncOrderElementsWithJiraIssues(issueDTOs, order);
+                if (!synchronizationInfo.isSuccessful()) {
+                    syncInfos.add(synchronizationInfo);
+                    continue;
+                }
+                orderModel.save(false);
+
+                saveSyncInfo(orderSyncInfo.getKey(), order);
+
+                jiraTimesheetSynchronizer.syncJiraTimesheetWithJiraIssues(
+                        issueDTOs, order);
+                if (!synchronizationInfo.isSuccessful()) {
+                    syncInfos.add(synchronizationInfo);
+                }
             }
+        } finally {
+            executor.shutdownNow();
         }
         return syncInfos;
     }
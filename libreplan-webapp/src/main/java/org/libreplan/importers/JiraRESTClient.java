@@ -19,6 +19,7 @@
 
 package org.libreplan.importers;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
@@ -64,7 +65,9 @@ public class JiraRESTClient {
     private static final String FIELDS_TO_INCLUDE_IN_RESPONSE = "summary,status,timetracking,worklog";
 
     /**
-     * Max number of issues to return(default is 50)
+     * Max number of issues to return per page(default is 50). The server
+     * could return less, so the next pages are requested until the total is
+     * reached
      */
     private static final long MAX_RESULTS = 1000;
 
@@ -103,22 +106,44 @@ public class JiraRESTClient {
     public static List<IssueDTO> getIssues(String url, String username,
             String password, String path, String query) {
 
-        WebClient client = createClient(url);
+        checkAutherization(createClient(url), username, password);
+
+        List<IssueDTO> result = new ArrayList<IssueDTO>();
+        SearchResultDTO searchResult;
+        do {
+            searchResult = getIssuesPage(url, username, password, path,
+                    query, result.size());
+            if (searchResult.getIssues() == null
+                    || searchResult.getIssues().isEmpty()) {
+                break;
+            }
+            result.addAll(searchResult.getIssues());
+        } while (searchResult.getTotal() != null
+                && result.size() < searchResult.getTotal());
+
+        return result;
+    }
 
-        checkAutherization(client, username, password);
+    /**
+     * Query Jira for the issues with the specified query parameter starting
+     * at <code>startAt</code>
+     */
+    private static SearchResultDTO getIssuesPage(String url, String username,
+            String password, String path, String query, int startAt) {
+
+        WebClient client = createClient(url);
+        Util.addAuthorizationHeader(client, username, password);
 
-        client.back(true);// Go to baseURI
         client.path(path);
         if (!query.isEmpty()) {
             client.query("jql", query);
         }
+        client.query("startAt", startAt);
         client.query("maxResults", MAX_RESULTS);
         client.query("fields",
                 StringUtils.deleteWhitespace(FIELDS_TO_INCLUDE_IN_RESPONSE));
 
-        SearchResultDTO searchResult = client.get(SearchResultDTO.class);
-
-        return searchResult.getIssues();
+        return client.get(SearchResultDTO.class);
     }
 
     /**
@@ -21,7 +21,9 @@ package org.libreplan.importers;
 
 import static org.libreplan.web.I18nHelper._;
 
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Set;
 
 import org.apache.commons.lang.StringUtils;
@@ -72,7 +74,7 @@ public class JiraTimesheetSynchronizer implements IJiraTimesheetSynchronizer {
 
     private SynchronizationInfo synchronizationInfo;
 
-    private List<Worker> workers;
+    private Map<String, Worker> workersByNif;
 
     private WorkReportType workReportType;
 
@@ -110,8 +112,8 @@ public class JiraTimesheetSynchronizer implements IJiraTimesheetSynchronizer {
         workReportType = getJiraTimesheetsWorkReportType();
         typeOfWorkHours = getTypeOfWorkHours();
 
-        workers = getWorkers();
-        if (workers == null && workers.isEmpty()) {
+        workersByNif = getWorkersByNif();
+        if (workersByNif.isEmpty()) {
             synchronizationInfo.addFailedReason(_("No workers found"));
             return;
         }
@@ -359,12 +361,18 @@ public class JiraTimesheetSynchronizer implements IJiraTimesheetSynchronizer {
 
 
     /**
-     * Gets all libreplan workers
+     * Gets all libreplan workers indexed by their nif
      *
-     * @return list of workers
+     * @return map of workers by nif
      */
-    private List<Worker> getWorkers() {
-        return workerDAO.findAll();
+    private Map<String, Worker> getWorkersByNif() {
+        Map<String, Worker> result = new HashMap<String, Worker>();
+        for (Worker worker : workerDAO.findAll()) {
+            if (!result.containsKey(worker.getNif())) {
+                result.put(worker.getNif(), worker);
+            }
+        }
+        return result;
     }
 
     /**
@@ -375,10 +383,9 @@ public class JiraTimesheetSynchronizer implements IJiraTimesheetSynchronizer {
      * @return worker if found, null otherwise
      */
     private Worker getWorker(String nif) {
-        for (Worker worker : workers) {
-            if (worker.getNif().equals(nif)) {
-                return worker;
-            }
+        Worker worker = workersByNif.get(nif);
+        if (worker != null) {
+            return worker;
         }
         synchronizationInfo.addFailedReason(_("Worker \"{0}\" not found", nif));
         return null;
@@ -24,7 +24,9 @@ import static org.libreplan.web.I18nHelper._;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.ConcurrentModificationException;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 import net.sf.mpxj.reader.ProjectReader;
@@ -303,9 +305,12 @@ project.calendarName));
 
         List<TaskElement> taskElements = new ArrayList<TaskElement>();
 
+        Map<String, BaseCalendar> calendarsByName = new HashMap<String, BaseCalendar>();
+
         for (OrderElementDTO importTask : project.tasks) {
 
-            taskElements.add(createTask(importTask, importCalendar));
+            taskElements.add(createTask(importTask, importCalendar,
+                    calendarsByName));
 
         }
 
@@ -354,10 +359,14 @@ project.calendarName));
      *
      * @param task
      *            ImportTask to extract data from.
+     * @param calendarsByName
+     *            Calendars already found during this import, so each one is
+     *            retrieved only once instead of once per task.
      *
      * @return TaskElement TaskElement that represent the data.
      */
-    private TaskElement createTask(OrderElementDTO task, boolean importCalendar) {
+    private TaskElement createTask(OrderElementDTO task,
+            boolean importCalendar, Map<String, BaseCalendar> calendarsByName) {
 
         OrderElement orderElement = task.orderElement;
 
@@ -375,7 +384,8 @@ project.calendarName));
                     .createTaskWithoutDatesInitializedAndLinkItToTaskSource();
 
             if (importCalendar && task.calendarName != null) {
-                taskElement.setCalendar(findBaseCalendar(task.calendarName));
+                taskElement.setCalendar(findBaseCalendar(task.calendarName,
+                        calendarsByName));
             }
 
             setPositionConstraint((Task) taskElement, task);
@@ -392,7 +402,8 @@ project.calendarName));
 
             for (OrderElementDTO importTask : task.children) {
 
-                taskElements.add(createTask(importTask, importCalendar));
+                taskElements.add(createTask(importTask, importCalendar,
+                        calendarsByName));
 
             }
 
@@ -539,8 +550,6 @@ project.calendarName));
 
         final List<TaskSource> taskSources = new ArrayList<TaskSource>();
 
-        taskSources.add(taskGroup.getTaskSource());
-
         for (TaskElement taskElement : taskGroup.getAllChildren()) {
 
             if (!taskElement.isMilestone()) {
@@ -555,10 +564,15 @@ project.calendarName));
 
         taskDAO.save(taskGroup);
 
+        // Validating a TaskSource cascades to the whole tree of its task, so
+        // validating each one would check the same tasks again and again. The
+        // root one covers all the tasks and the rest have just been linked to
+        // theirs.
+        taskSourceDAO.save(taskGroup.getTaskSource());
+
         for (TaskSource taskSource : taskSources) {
 
-            taskSource.validate();
-            taskSourceDAO.save(taskSource);
+            taskSourceDAO.saveWithoutValidating(taskSource);
 
         }
 
@@ -633,6 +647,31 @@ project.calendarName));
         }
     }
 
+    /**
+     * Private method.
+     *
+     * Like {@link #findBaseCalendar(String)}, but remembering in
+     * <code>calendarsByName</code> the calendars already found.
+     *
+     * @param name
+     *            String with the name that we want to find.
+     * @param calendarsByName
+     *            Calendars already found.
+     * @return BaseCalendar Calendar.
+     */
+    private BaseCalendar findBaseCalendar(String name,
+            Map<String, BaseCalendar> calendarsByName) {
+
+        BaseCalendar calendar = calendarsByName.get(name);
+
+        if (calendar == null) {
+            calendar = findBaseCalendar(name);
+            calendarsByName.put(name, calendar);
+        }
+
+        return calendar;
+    }
+
     /**
      * Private method.
      *
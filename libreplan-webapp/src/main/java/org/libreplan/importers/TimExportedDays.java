@@ -0,0 +1,56 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2013 Igalia, S.L.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.libreplan.importers;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import org.springframework.beans.factory.config.BeanDefinition;
+import org.springframework.context.annotation.Scope;
+import org.springframework.stereotype.Component;
+
+/**
+ * Versions of the work report lines already sent to Tim, by product code and
+ * order, and then by worker and day. It's kept between the runs of
+ * {@link ExportTimesheetsToTim}, which is a prototype, so the scheduled export
+ * only sends the days that changed since the last successful export. After a
+ * restart the whole period is sent again.
+ */
+@Component
+@Scope(BeanDefinition.SCOPE_SINGLETON)
+public class TimExportedDays {
+
+    private final ConcurrentMap<String, Map<String, String>> versionsByExportKey = new ConcurrentHashMap<String, Map<String, String>>();
+
+    /**
+     * @return the versions by worker and day of the last successful export,
+     *         <code>null</code> if there is none
+     */
+    public Map<String, String> get(String exportKey) {
+        return versionsByExportKey.get(exportKey);
+    }
+
+    public void put(String exportKey, Map<String, String> versionsByDay) {
+        versionsByExportKey.put(exportKey, versionsByDay);
+    }
+
+}
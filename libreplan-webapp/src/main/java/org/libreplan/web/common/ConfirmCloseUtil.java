@@ -18,6 +18,8 @@
  */
 package org.libreplan.web.common;
 
+import java.util.concurrent.TimeUnit;
+
 import org.libreplan.business.common.Registry;
 import org.zkoss.ganttz.util.LongOperationFeedback;
 import org.zkoss.ganttz.util.LongOperationFeedback.IBackGroundOperation;
@@ -43,30 +45,23 @@ public class ConfirmCloseUtil {
                 .getSecondsPlanningWarning();
 
         if (seconds > 0) {
-            LongOperationFeedback
-                    .progressive(
-                            desktop,
-                            new IBackGroundOperation<LongOperationFeedback.IDesktopUpdate>() {
+            LongOperationFeedback.progressiveAfter(desktop, seconds,
+                    TimeUnit.SECONDS,
+                    new IBackGroundOperation<IDesktopUpdate>() {
 
-                                @Override
-                                public void doOperation(
-                                        IDesktopUpdatesEmitter<IDesktopUpdate> desktopUpdateEmitter) {
-                                    try {
-                                        Thread.sleep(seconds * 1000);
-                                    } catch (InterruptedException e) {
-                                        throw new RuntimeException(e);
-                                    }
-                                    desktopUpdateEmitter
-                                            .doUpdate(new IDesktopUpdate() {
+                        @Override
+                        public void doOperation(
+                                IDesktopUpdatesEmitter<IDesktopUpdate> desktopUpdateEmitter) {
+                            desktopUpdateEmitter.doUpdate(new IDesktopUpdate() {
 
-                                                @Override
-                                                public void doUpdate() {
-                                                    resetConfirmClose();
-                                                    Clients.confirmClose(message);
-                                                }
-                                            });
+                                @Override
+                                public void doUpdate() {
+                                    resetConfirmClose();
+                                    Clients.confirmClose(message);
                                 }
                             });
+                        }
+                    });
         }
     }
 
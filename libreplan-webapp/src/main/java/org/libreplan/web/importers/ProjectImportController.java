@@ -19,6 +19,8 @@ import org.libreplan.web.common.IMessagesForUser;
 import org.libreplan.web.common.Level;
 import org.libreplan.web.common.MessagesForUser;
 import org.springframework.transaction.annotation.Transactional;
+import org.zkoss.ganttz.util.LongOperationFeedback;
+import org.zkoss.ganttz.util.LongOperationFeedback.ILongOperation;
 import org.zkoss.util.media.Media;
 import org.zkoss.zk.ui.Component;
 import org.zkoss.zk.ui.util.GenericForwardComposer;
@@ -63,7 +65,24 @@ public class ProjectImportController extends GenericForwardComposer {
      * @param Media
      *            Media to be imported.
      */
-    public void importProject(Media media) {
+    public void importProject(final Media media) {
+
+        LongOperationFeedback.execute(self, new ILongOperation() {
+
+            @Override
+            public void doAction() {
+                importProjectShowingMessages(media);
+            }
+
+            @Override
+            public String getName() {
+                return _("Importing project");
+            }
+        });
+
+    }
+
+    private void importProjectShowingMessages(Media media) {
 
         String file = media.getName();
 
@@ -79,10 +79,7 @@ import org.libreplan.business.resources.entities.LimitingResourceQueue;
 import org.libreplan.business.resources.entities.Resource;
 import org.libreplan.business.scenarios.bootstrap.PredefinedScenarios;
 import org.libreplan.business.scenarios.entities.Scenario;
-import org.libreplan.business.users.daos.IOrderAuthorizationDAO;
 import org.libreplan.business.users.daos.IUserDAO;
-import org.libreplan.business.users.entities.OrderAuthorization;
-import org.libreplan.business.users.entities.OrderAuthorizationType;
 import org.libreplan.business.users.entities.User;
 import org.libreplan.business.users.entities.UserRole;
 import org.libreplan.business.workingday.EffortDuration;
@@ -110,9 +107,6 @@ public class LimitingResourceQueueModel implements ILimitingResourceQueueModel {
     @Autowired
     private IUserDAO userDAO;
 
-    @Autowired
-    private IOrderAuthorizationDAO orderAuthorizationDAO;
-
     @Autowired
     private ILimitingResourceQueueElementDAO limitingResourceQueueElementDAO;
 
@@ -139,12 +133,17 @@ public class LimitingResourceQueueModel implements ILimitingResourceQueueModel {
 
     private Scenario master;
 
+    private String readableOrdersLoginName;
+
+    private Set<Long> readableOrdersIds;
+
     private Map<LimitingResourceQueueElement, HashSet<LimitingResourceQueueDependency>> toBeSavedDependencies =
         new HashMap<LimitingResourceQueueElement, HashSet<LimitingResourceQueueDependency>>();
 
     @Override
     @Transactional(readOnly = true)
     public void initGlobalView() {
+        forgetReadableOrders();
         doGlobalView();
     }
 
@@ -393,14 +392,8 @@ public class LimitingResourceQueueModel implements ILimitingResourceQueueModel {
             return true;
         }
         try {
-            User user = userDAO.findByLoginName(loginName);
-            for (OrderAuthorization authorization : orderAuthorizationDAO
-                    .listByOrderUserAndItsProfiles(order, user)) {
-                if (authorization.getAuthorizationType() == OrderAuthorizationType.READ_AUTHORIZATION
-                        || authorization.getAuthorizationType() == OrderAuthorizationType.WRITE_AUTHORIZATION) {
-                    return true;
-                }
-            }
+            Set<Long> ids = getReadableOrdersIds(loginName);
+            return ids == null || ids.contains(order.getId());
         } catch (InstanceNotFoundException e) {
             // this case shouldn't happen, because it would mean that there
             // isn't a logged user
@@ -409,6 +402,21 @@ public class LimitingResourceQueueModel implements ILimitingResourceQueueModel {
         return false;
     }
 
+    private Set<Long> getReadableOrdersIds(String loginName)
+            throws InstanceNotFoundException {
+        if (!loginName.equals(readableOrdersLoginName)) {
+            User user = userDAO.findByLoginName(loginName);
+            readableOrdersIds = orderDAO.getOrdersIdsByReadAuthorization(user);
+            readableOrdersLoginName = loginName;
+        }
+        return readableOrdersIds;
+    }
+
+    private void forgetReadableOrders() {
+        readableOrdersLoginName = null;
+        readableOrdersIds = null;
+    }
+
     @Override
     public List<LimitingResourceQueue> getLimitingResourceQueues() {
         return queuesState.getQueuesOrderedByResourceName();
@@ -115,25 +115,29 @@ public class MonteCarloController extends GenericForwardComposer {
             @Override
             public void onEvent(Event event) {
                 validateRowsPercentages();
+                // the components are read here, in the event thread, so only
+                // the calculation is done by the background operation
+                final int iterations = getIterations();
+                final List<MonteCarloTask> criticalPath = getSelectedCriticalPath();
+                btnRunMonteCarlo.setDisabled(true);
                 IBackGroundOperation<IDesktopUpdate> operation = new IBackGroundOperation<IDesktopUpdate>() {
 
                      @Override
                     public void doOperation(
                             IDesktopUpdatesEmitter<IDesktopUpdate> desktopUpdateEmitter) {
-                        executeMontecarlo(desktopUpdateEmitter);
+                        executeMontecarlo(criticalPath, iterations,
+                                desktopUpdateEmitter);
                      }
                 };
                 LongOperationFeedback.progressive(self.getDesktop(), operation);
             }
 
-            private void executeMontecarlo(
+            private void executeMontecarlo(List<MonteCarloTask> criticalPath,
+                    int iterations,
                     IDesktopUpdatesEmitter<IDesktopUpdate> updatesEmitter) {
                 try {
-                    updatesEmitter.doUpdate(disableButton(true));
-                    int iterations = getIterations();
                     final Map<LocalDate, BigDecimal> monteCarloData = monteCarloModel
-                            .calculateMonteCarlo(getSelectedCriticalPath(),
-                                    iterations,
+                            .calculateMonteCarlo(criticalPath, iterations,
                                     percentageCompletedNotifier(updatesEmitter));
                     updatesEmitter.doUpdate(showCalculatedData(monteCarloData));
                 } finally {
@@ -76,10 +76,7 @@ import org.libreplan.business.scenarios.entities.Scenario;
 import org.libreplan.business.templates.daos.IOrderElementTemplateDAO;
 import org.libreplan.business.templates.entities.OrderElementTemplate;
 import org.libreplan.business.templates.entities.OrderTemplate;
-import org.libreplan.business.users.daos.IOrderAuthorizationDAO;
 import org.libreplan.business.users.daos.IUserDAO;
-import org.libreplan.business.users.entities.OrderAuthorization;
-import org.libreplan.business.users.entities.OrderAuthorizationType;
 import org.libreplan.business.users.entities.User;
 import org.libreplan.business.users.entities.UserRole;
 import org.libreplan.web.calendars.BaseCalendarModel;
@@ -159,11 +156,12 @@ public class OrderModel extends IntegrationEntityModel implements IOrderModel {
     @Autowired
     private IUserDAO userDAO;
 
-    @Autowired
-    private IOrderAuthorizationDAO orderAuthorizationDAO;
-
     private List<Order> orderList = new ArrayList<Order>();
 
+    private String readableOrdersLoginName;
+
+    private Set<Long> readableOrdersIds;
+
     @Autowired
     private IScenarioDAO scenarioDAO;
 
@@ -240,6 +238,7 @@ public class OrderModel extends IntegrationEntityModel implements IOrderModel {
     }
 
     private void initializeOrders(List<Order> list) {
+        forgetReadableOrders();
         for (Order order : list) {
             orderDAO.reattachUnmodifiedEntity(order);
             if (order.getCustomer() != null) {
@@ -489,6 +488,8 @@ public class OrderModel extends IntegrationEntityModel implements IOrderModel {
 
     @Override
     public void save(boolean showSaveMessage) {
+        // the authorizations of the order could have been changed
+        forgetReadableOrders();
         IBeforeSaveActions beforeSaveActions = new IBeforeSaveActions() {
 
             @Override
@@ -793,16 +794,8 @@ public class OrderModel extends IntegrationEntityModel implements IOrderModel {
             return true;
         }
         try {
-            User user = userDAO.findByLoginName(loginName);
-            for(OrderAuthorization authorization :
-                    orderAuthorizationDAO.listByOrderUserAndItsProfiles(order, user)) {
-                if(authorization.getAuthorizationType() ==
-                        OrderAuthorizationType.READ_AUTHORIZATION ||
-                    authorization.getAuthorizationType() ==
-                        OrderAuthorizationType.WRITE_AUTHORIZATION) {
-                    return true;
-                }
-            }
+            Set<Long> ids = getReadableOrdersIds(loginName);
+            return ids == null || ids.contains(order.getId());
         }
         catch(InstanceNotFoundException e) {
             //this case shouldn't happen, because it would mean that there isn't a logged user
@@ -811,6 +804,26 @@ public class OrderModel extends IntegrationEntityModel implements IOrderModel {
         return false;
     }
 
+    /**
+     * The orders the user can read are retrieved once and kept until the
+     * model reloads its data, so checking several orders doesn't query them
+     * again
+     */
+    private Set<Long> getReadableOrdersIds(String loginName)
+            throws InstanceNotFoundException {
+        if (!loginName.equals(readableOrdersLoginName)) {
+            User user = userDAO.findByLoginName(loginName);
+            readableOrdersIds = orderDAO.getOrdersIdsByReadAuthorization(user);
+            readableOrdersLoginName = loginName;
+        }
+        return readableOrdersIds;
+    }
+
+    private void forgetReadableOrders() {
+        readableOrdersLoginName = null;
+        readableOrdersIds = null;
+    }
+
     @Override
     @Transactional(readOnly = true)
     public boolean userCanWrite(Order order) {
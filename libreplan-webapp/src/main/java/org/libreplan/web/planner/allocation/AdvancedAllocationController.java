@@ -29,6 +29,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.ListIterator;
 import java.util.Map;
@@ -1105,7 +1106,9 @@ class Row {
                 if (component == null) {
                     return;
                 }
-                reloadEffortOnInterval(component, detailItem);
+                if (!isDetached(component)) {
+                    reloadEffortOnInterval(component, detailItem);
+                }
                 reloadAllEffort();
             }
         });
@@ -1179,13 +1182,27 @@ class Row {
         return isGroupingRow() || isLimiting || task.isUpdatedFromTimesheets();
     }
 
+    /**
+     * The cells of the pages no longer shown are discarded instead of being
+     * reloaded. They are created again if their page is shown.
+     */
     private void reloadEffortsSameRowForDetailItems() {
-        for (Entry<DetailItem, Component> entry : componentsByDetailItem
-                .entrySet()) {
-            reloadEffortOnInterval(entry.getValue(), entry.getKey());
+        Iterator<Entry<DetailItem, Component>> iterator = componentsByDetailItem
+                .entrySet().iterator();
+        while (iterator.hasNext()) {
+            Entry<DetailItem, Component> entry = iterator.next();
+            if (isDetached(entry.getValue())) {
+                iterator.remove();
+            } else {
+                reloadEffortOnInterval(entry.getValue(), entry.getKey());
+            }
         }
     }
 
+    private static boolean isDetached(Component component) {
+        return component.getPage() == null;
+    }
+
     private void reloadAllEffort() {
         if (allEffortInput == null) {
             return;
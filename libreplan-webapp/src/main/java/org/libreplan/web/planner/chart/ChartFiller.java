@@ -24,19 +24,22 @@ package org.libreplan.web.planner.chart;
 import static org.libreplan.business.workingday.EffortDuration.zero;
 
 import java.io.IOException;
-import java.io.PrintWriter;
+import java.io.OutputStream;
+import java.io.UnsupportedEncodingException;
 import java.math.BigDecimal;
 import java.math.RoundingMode;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-import java.util.Set;
 import java.util.SortedMap;
 import java.util.TreeMap;
+import java.util.zip.GZIPOutputStream;
 
 import javax.servlet.ServletException;
 import javax.servlet.http.HttpServletRequest;
@@ -45,6 +48,10 @@ import javax.servlet.http.HttpServletResponse;
 import org.joda.time.DateTime;
 import org.joda.time.Days;
 import org.joda.time.LocalDate;
+import org.joda.time.format.DateTimeFormat;
+import org.joda.time.format.DateTimeFormatter;
+import org.libreplan.business.planner.chart.ILoadChartData;
+import org.libreplan.business.planner.chart.WeeklyAverages;
 import org.libreplan.business.planner.entities.DayAssignment;
 import org.libreplan.business.resources.entities.Resource;
 import org.libreplan.business.workingday.EffortDuration;
@@ -113,42 +120,146 @@ public abstract class ChartFiller implements IChartFiller {
         return resource.getCalendarOrDefault().getCapacityOn(day);
     }
 
+    private static final DateTimeFormatter ISO_8601_FORMAT = DateTimeFormat
+            .forPattern("yyyyMMdd'T'HHmmss'Z'");
+
+    /**
+     * Lines of the data sent to the chart. Consecutive intervals with the
+     * same value are joined, so only the start and the end of the joined
+     * interval are sent.
+     */
+    protected static class ChartLines {
+
+        private final StringBuilder result = new StringBuilder();
+
+        private DateTime pendingStart;
+
+        private DateTime pendingEnd;
+
+        private BigDecimal pendingValue;
+
+        void point(DateTime time, BigDecimal value) {
+            flush();
+            append(time, value);
+        }
+
+        void interval(DateTime start, DateTime end, BigDecimal value) {
+            if (pendingValue != null && pendingValue.compareTo(value) == 0
+                    && pendingEnd.plusSeconds(1).equals(start)) {
+                pendingEnd = end;
+                return;
+            }
+            flush();
+            pendingStart = start;
+            pendingEnd = end;
+            pendingValue = value;
+        }
+
+        private void flush() {
+            if (pendingValue != null) {
+                append(pendingStart, pendingValue);
+                append(pendingEnd, pendingValue);
+                pendingValue = null;
+            }
+        }
+
+        private void append(DateTime time, BigDecimal value) {
+            // using ISO 8601 format [YYYY][MM][DD]T[hh][mm][ss]Z.
+            result.append(ISO_8601_FORMAT.print(time)).append(' ')
+                    .append(value).append('\n');
+        }
+
+        byte[] getBytes() {
+            flush();
+            try {
+                return result.toString().getBytes("UTF-8");
+            } catch (UnsupportedEncodingException e) {
+                throw new RuntimeException(e);
+            }
+        }
+    }
+
     protected abstract class GraphicSpecificationCreator implements
             IServletRequestHandler {
 
         private final LocalDate finish;
         private final SortedMap<LocalDate, BigDecimal> map;
         private final LocalDate start;
+        private final boolean zoomByDayOrWeek;
+
+        /**
+         * The data is calculated on the first request and kept for the next
+         * ones, since it doesn't change for a given URL
+         */
+        private byte[] content;
+        private String eTag;
 
         protected GraphicSpecificationCreator(LocalDate finish,
                 SortedMap<LocalDate, BigDecimal> map, LocalDate start) {
             this.finish = new LocalDate(finish);
             this.map = map;
             this.start = new LocalDate(start);
+            this.zoomByDayOrWeek = ChartFiller.this.isZoomByDayOrWeek();
         }
 
-        protected Set<LocalDate> getDays() {
-            return map.keySet();
+        protected SortedMap<LocalDate, BigDecimal> getValues() {
+            return map;
         }
 
         @Override
         public void handle(HttpServletRequest request,
                 HttpServletResponse response) throws ServletException,
                 IOException {
-            PrintWriter writer = response.getWriter();
-            fillValues(writer);
-            writer.close();
+            byte[] data = getContent();
+            response.setHeader("ETag", eTag);
+            response.setHeader("Cache-Control", "private");
+            if (eTag.equals(request.getHeader("If-None-Match"))) {
+                response.setStatus(HttpServletResponse.SC_NOT_MODIFIED);
+                return;
+            }
+            response.setContentType("text/plain;charset=UTF-8");
+            response.setHeader("Vary", "Accept-Encoding");
+            OutputStream output;
+            if (acceptsGzip(request)) {
+                response.setHeader("Content-Encoding", "gzip");
+                output = new GZIPOutputStream(response.getOutputStream());
+            } else {
+                response.setContentLength(data.length);
+                output = response.getOutputStream();
+            }
+            output.write(data);
+            output.close();
+        }
+
+        private boolean acceptsGzip(HttpServletRequest request) {
+            String acceptEncoding = request.getHeader("Accept-Encoding");
+            return acceptEncoding != null && acceptEncoding.contains("gzip");
         }
 
-        private void fillValues(PrintWriter writer) {
-            fillZeroValueFromStart(writer);
-            fillInnerValues(writer, firstDay(), lastDay());
-            fillZeroValueToFinish(writer);
+        private synchronized byte[] getContent() {
+            if (content == null) {
+                ChartLines lines = new ChartLines();
+                fillValues(lines);
+                content = lines.getBytes();
+                eTag = "\"" + Integer.toHexString(Arrays.hashCode(content))
+                        + "\"";
+            }
+            return content;
         }
 
-        protected abstract void fillInnerValues(PrintWriter writer,
+        private void fillValues(ChartLines lines) {
+            fillZeroValueFromStart(lines);
+            fillInnerValues(lines, firstDay(), lastDay());
+            fillZeroValueToFinish(lines);
+        }
+
+        protected abstract void fillInnerValues(ChartLines lines,
                 LocalDate firstDay, LocalDate lastDay);
 
+        protected boolean isZoomByDayOrWeek() {
+            return zoomByDayOrWeek;
+        }
+
         protected LocalDate nextDay(LocalDate date) {
             if (isZoomByDayOrWeek()) {
                 return date.plusDays(1);
@@ -175,26 +286,16 @@ public abstract class ChartFiller implements IChartFiller {
             }
         }
 
-        protected BigDecimal getHoursForDay(LocalDate day) {
-            return map.get(day) != null ? map.get(day) : BigDecimal.ZERO;
-        }
-
-        protected void printLine(PrintWriter writer, DateTime day,
+        protected void printLine(ChartLines lines, DateTime day,
                 BigDecimal hours) {
-            // using ISO 8601 format [YYYY][MM][DD]T[hh][mm][ss]Z.
-            String position = day.toString("yyyyMMdd") + "T"
-                    + day.toString("HHmmss") + "Z";
-            writer.println(position + " " + hours);
+            lines.point(day, hours);
         }
 
-        protected void printIntervalLine(PrintWriter writer, LocalDate day,
+        protected void printIntervalLine(ChartLines lines, LocalDate day,
                 BigDecimal hours, boolean isZoomByDay) {
-            // using ISO 8601 format [YYYY][MM][DD]T[hh][mm][ss]Z.
             DateTime initOfInterval = getInitOfInterval(day, isZoomByDay);
             DateTime finishOfInterval = getFinishOfInterval(day, isZoomByDay);
-
-            printLine(writer, initOfInterval, hours);
-            printLine(writer, finishOfInterval, hours);
+            lines.interval(initOfInterval, finishOfInterval, hours);
         }
 
         protected DateTime getInitOfInterval(LocalDate day,
@@ -217,12 +318,12 @@ public abstract class ChartFiller implements IChartFiller {
             }
         }
 
-        private void fillZeroValueFromStart(PrintWriter writer) {
+        private void fillZeroValueFromStart(ChartLines lines) {
             if (!startIsDayOfFirstAssignment()) {
-                printLine(writer, start.toDateTimeAtStartOfDay(),
+                printLine(lines, start.toDateTimeAtStartOfDay(),
                         BigDecimal.ZERO);
                 if (startIsPreviousToPreviousDayToFirstAssignment()) {
-                    printLine(writer, previousDayToFirstAssignment(),
+                    printLine(lines, previousDayToFirstAssignment(),
                             BigDecimal.ZERO);
                 }
             }
@@ -243,15 +344,15 @@ public abstract class ChartFiller implements IChartFiller {
                     .minusSeconds(1);
         }
 
-        private void fillZeroValueToFinish(PrintWriter writer) {
+        private void fillZeroValueToFinish(ChartLines lines) {
             if (!finishIsDayOfLastAssignment()) {
                 if (finishIsPosteriorToNextDayToLastAssignment()) {
-                    printLine(writer, nextDayToLastAssignment(),
+                    printLine(lines, nextDayToLastAssignment(),
                             BigDecimal.ZERO);
                 }
                 DateTime finishMidNight = finish.plusDays(1)
                         .toDateTimeAtStartOfDay().minusSeconds(1);
-                printLine(writer, finishMidNight, BigDecimal.ZERO);
+                printLine(lines, finishMidNight, BigDecimal.ZERO);
             }
         }
 
@@ -280,14 +381,29 @@ public abstract class ChartFiller implements IChartFiller {
         }
 
         @Override
-        protected void fillInnerValues(PrintWriter writer, LocalDate firstDay,
+        protected void fillInnerValues(ChartLines lines, LocalDate firstDay,
                 LocalDate lastDay) {
+            Iterator<Entry<LocalDate, BigDecimal>> values = getValues()
+                    .tailMap(firstDay).entrySet().iterator();
+            Entry<LocalDate, BigDecimal> current = next(values);
             for (LocalDate day = firstDay; day.compareTo(lastDay) <= 0; day = nextDay(day)) {
-                BigDecimal hours = getHoursForDay(day);
-                printIntervalLine(writer, day, hours, isZoomByDayOrWeek());
+                while (current != null && current.getKey().isBefore(day)) {
+                    current = next(values);
+                }
+                BigDecimal hours = BigDecimal.ZERO;
+                if (current != null && current.getKey().equals(day)
+                        && current.getValue() != null) {
+                    hours = current.getValue();
+                }
+                printIntervalLine(lines, day, hours, isZoomByDayOrWeek());
             }
         }
 
+        private Entry<LocalDate, BigDecimal> next(
+                Iterator<Entry<LocalDate, BigDecimal>> iterator) {
+            return iterator.hasNext() ? iterator.next() : null;
+        }
+
     }
 
     protected class JustDaysWithInformationGraphicSpecificationCreator extends
@@ -300,22 +416,17 @@ public abstract class ChartFiller implements IChartFiller {
         }
 
         @Override
-        protected void fillInnerValues(PrintWriter writer, LocalDate firstDay,
+        protected void fillInnerValues(ChartLines lines, LocalDate firstDay,
                 LocalDate lastDay) {
-            for (LocalDate day : getDays()) {
-                BigDecimal hours = getHoursForDay(day);
-                printLine(writer, day.toDateTimeAtStartOfDay(), hours);
+            for (Entry<LocalDate, BigDecimal> each : getValues().entrySet()) {
+                BigDecimal hours = each.getValue() != null ? each.getValue()
+                        : BigDecimal.ZERO;
+                printLine(lines, each.getKey().toDateTimeAtStartOfDay(), hours);
             }
         }
 
     }
 
-    /**
-     * Number of days to Thursday since the beginning of the week. In order to
-     * calculate the middle of a week.
-     */
-    private final static int DAYS_TO_THURSDAY = 3;
-
     private ZoomLevel zoomLevel = ZoomLevel.DETAIL_ONE;
 
     private BigDecimal minimumValueForChart = BigDecimal.ZERO;
@@ -338,7 +449,7 @@ public abstract class ChartFiller implements IChartFiller {
     }
 
     private static LocalDate getThursdayOfThisWeek(LocalDate date) {
-        return date.dayOfWeek().withMinimumValue().plusDays(DAYS_TO_THURSDAY);
+        return WeeklyAverages.getThursdayOfThisWeek(date);
     }
 
     private boolean isZoomByDayOrWeek() {
@@ -391,29 +502,14 @@ public abstract class ChartFiller implements IChartFiller {
 
     protected SortedMap<LocalDate, EffortDuration> groupByWeekDurations(
             SortedMap<LocalDate, EffortDuration> map) {
-        return average(accumulatePerWeek(map));
+        return WeeklyAverages.of(map);
     }
 
-    private static SortedMap<LocalDate, EffortDuration> accumulatePerWeek(
-            SortedMap<LocalDate, EffortDuration> map) {
-        SortedMap<LocalDate, EffortDuration> result = new TreeMap<LocalDate, EffortDuration>();
-        for (Entry<LocalDate, EffortDuration> each : map.entrySet()) {
-            LocalDate centerOfWeek = getThursdayOfThisWeek(each.getKey());
-            EffortDuration accumulated = result.get(centerOfWeek);
-            accumulated = accumulated == null ? zero() : accumulated;
-            result.put(centerOfWeek, accumulated.plus(each.getValue()));
-        }
-        return result;
-    }
-
-    private static SortedMap<LocalDate, EffortDuration> average(
-            SortedMap<LocalDate, EffortDuration> accumulatedPerWeek) {
-        SortedMap<LocalDate, EffortDuration> result = new TreeMap<LocalDate, EffortDuration>();
-        for (Entry<LocalDate, EffortDuration> each : accumulatedPerWeek
-                .entrySet()) {
-            result.put(each.getKey(), each.getValue().divideBy(7));
+    protected ILoadChartData groupAsNeededByZoom(ILoadChartData data) {
+        if (isZoomByDayOrWeek()) {
+            return data;
         }
-        return result;
+        return data.byWeek();
     }
 
     protected TimeGeometry getTimeGeometry(Interval interval) {
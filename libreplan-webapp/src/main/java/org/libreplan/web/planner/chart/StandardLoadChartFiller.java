@@ -3,11 +3,9 @@ package org.libreplan.web.planner.chart;
 import static java.util.Arrays.asList;
 
 import java.util.Collections;
-import java.util.SortedMap;
 
 import org.joda.time.LocalDate;
 import org.libreplan.business.planner.chart.ILoadChartData;
-import org.libreplan.business.workingday.EffortDuration;
 import org.zkforge.timeplot.Plotinfo;
 import org.zkoss.ganttz.util.Interval;
 
@@ -15,21 +13,21 @@ public abstract class StandardLoadChartFiller extends LoadChartFiller {
 
     @Override
     protected Plotinfo[] getPlotInfos(Interval interval) {
-        final ILoadChartData data = getDataOn(interval);
+        final ILoadChartData data = groupAsNeededByZoom(getDataOn(interval));
 
-        Plotinfo plotInfoLoad = createPlotinfoFromDurations(getLoad(data),
+        Plotinfo plotInfoLoad = createPlotinfoFromDurations(data.getLoad(),
                 interval);
         plotInfoLoad.setFillColor(COLOR_ASSIGNED_LOAD);
         plotInfoLoad.setLineWidth(0);
 
         Plotinfo plotInfoMax = createPlotinfoFromDurations(
-                getCalendarMaximumAvailability(data), interval);
+                data.getAvailability(), interval);
         plotInfoMax.setLineColor(COLOR_CAPABILITY_LINE);
         plotInfoMax.setFillColor("#FFFFFF");
         plotInfoMax.setLineWidth(2);
 
         Plotinfo plotInfoOverload = createPlotinfoFromDurations(
-                getOverload(data), interval);
+                data.getOverload(), interval);
         plotInfoOverload.setFillColor(COLOR_OVERLOAD);
         plotInfoOverload.setLineWidth(0);
 
@@ -57,17 +55,4 @@ public abstract class StandardLoadChartFiller extends LoadChartFiller {
                 interval.getFinish()));
     }
 
-    private SortedMap<LocalDate, EffortDuration> getLoad(ILoadChartData data) {
-        return groupAsNeededByZoom(data.getLoad());
-    }
-
-    private SortedMap<LocalDate, EffortDuration> getOverload(ILoadChartData data) {
-        return groupAsNeededByZoom(data.getOverload());
-    }
-
-    private SortedMap<LocalDate, EffortDuration> getCalendarMaximumAvailability(
-            ILoadChartData data) {
-        return groupAsNeededByZoom(data.getAvailability());
-    }
-
 }
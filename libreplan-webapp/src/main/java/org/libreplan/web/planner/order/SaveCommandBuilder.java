@@ -26,6 +26,7 @@ import static org.libreplan.web.I18nHelper._;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Set;
 import java.util.SortedSet;
@@ -420,9 +421,10 @@ public class SaveCommandBuilder {
         }
 
         private void removeTaskElementsWithTaskSourceNull() {
-            List<TaskElement> toRemove = taskElementDAO
-                    .getTaskElementsNoMilestonesWithoutTaskSource();
-            List<TaskElement> parentsWithChangesToSave = new ArrayList<TaskElement>();
+            Set<TaskElement> toRemove = new HashSet<TaskElement>(
+                    taskElementDAO
+                            .getTaskElementsNoMilestonesWithoutTaskSource());
+            Set<TaskElement> parentsWithChangesToSave = new HashSet<TaskElement>();
             for (TaskElement taskElement : toRemove) {
                 try {
                     taskElementDAO.remove(taskElement.getId());
@@ -598,6 +600,11 @@ public class SaveCommandBuilder {
 
         private void removeTasksToRemove() {
             for (TaskElement taskElement : state.getToRemove()) {
+                if (taskElement.getId() == null) {
+                    // it has never been flushed, so there is nothing to
+                    // remove and no need to query the database for it
+                    continue;
+                }
                 if (taskElementDAO.exists(taskElement.getId())) {
                     // it might have already been saved in a previous save
                     // action
@@ -60,8 +60,11 @@ import org.zkoss.zk.ui.Desktop;
 import org.zkoss.zk.ui.event.Event;
 import org.zkoss.zk.ui.event.EventListener;
 import org.zkoss.zk.ui.event.Events;
-import org.zkoss.zk.ui.util.Clients;
+import org.zkoss.zul.Button;
+import org.zkoss.zul.Label;
 import org.zkoss.zul.Messagebox;
+import org.zkoss.zul.Vbox;
+import org.zkoss.zul.Window;
 
 /**
  * @author Óscar González Fernández <ogonzalez@igalia.com>
@@ -71,6 +74,8 @@ import org.zkoss.zul.Messagebox;
 @Scope(BeanDefinition.SCOPE_PROTOTYPE)
 public class ReassignCommand implements IReassignCommand {
 
+    private static final int REASSIGNATIONS_PER_TRANSACTION = 50;
+
     private PlanningState planningState;
 
     @Autowired
@@ -117,19 +122,22 @@ public class ReassignCommand implements IReassignCommand {
             @Override
             public void doOperation(
                     final IDesktopUpdatesEmitter<IDesktopUpdate> updater) {
-                updater.doUpdate(busyStart(reassignations.size()));
+                final ProgressWindow progress = new ProgressWindow(
+                        getDesktop(context));
+                updater.doUpdate(progress.open(context, reassignations.size()));
                 GanttDiagramGraph<Task, Dependency>.DeferedNotifier notifications = null;
                 try {
                     GanttDiagramGraph<Task, Dependency> ganttDiagramGraph = context
                             .getGanttDiagramGraph();
                     notifications = ganttDiagramGraph
                             .manualNotificationOn(doReassignations(
-                                    ganttDiagramGraph, reassignations, updater));
+                                    ganttDiagramGraph, reassignations, progress,
+                                    updater));
                 } finally {
                     if (notifications != null) {
                         // null if error
                         updater.doUpdate(and(doNotifications(notifications),
-                                reloadCharts(context), busyEnd(),
+                                reloadCharts(context), progress.close(),
                                 tellUserOnEnd(context, Messagebox.INFORMATION,
                                         new Callable<String>() {
 
@@ -139,8 +147,19 @@ public class ReassignCommand implements IReassignCommand {
                                                 reassignations.size());
                                     }
                                 })));
+                    } else if (progress.isCancelled()) {
+                        updater.doUpdate(and(reloadCharts(context),
+                                progress.close(),
+                                tellUserOnEnd(context, Messagebox.INFORMATION,
+                                        new Callable<String>() {
+
+                                    @Override
+                                    public String call() {
+                                        return _("Reassignation cancelled");
+                                    }
+                                })));
                     } else {
-                        updater.doUpdate(and(busyEnd(),
+                        updater.doUpdate(and(progress.close(),
                                 tellUserOnEnd(context, Messagebox.EXCLAMATION,
                                         new Callable<String>() {
 
@@ -158,48 +177,107 @@ public class ReassignCommand implements IReassignCommand {
 
     private IAction doReassignations(final GanttDiagramGraph<Task, Dependency> diagramGraph,
             final List<WithAssociatedEntity> reassignations,
+            final ProgressWindow progress,
             final IDesktopUpdatesEmitter<IDesktopUpdate> updater) {
         return new IAction() {
 
             @Override
             public void doAction() {
-                int i = 1;
                 final int total = reassignations.size();
-                for (final WithAssociatedEntity each : reassignations) {
-                    Task ganttTask = each.ganntTask;
-                    GanttDate previousStart = ganttTask.getBeginDate();
-                    GanttDate previousEnd = ganttTask.getEndDate();
-
+                for (int i = 0; i < total; i += REASSIGNATIONS_PER_TRANSACTION) {
+                    List<WithAssociatedEntity> batch = reassignations.subList(
+                            i, Math.min(total, i + REASSIGNATIONS_PER_TRANSACTION));
                     transactionService
-                            .runOnReadOnlyTransaction(reassignmentTransaction(each));
-                    diagramGraph.enforceRestrictions(each.ganntTask);
-                    ganttTask.enforceDependenciesDueToPositionPotentiallyModified();
-                    ganttTask.updateSizeDueToDateChanges(previousStart, previousEnd);
-
-                    updater.doUpdate(showCompleted(i, total));
-                    i++;
+                            .runOnReadOnlyTransaction(reassignmentTransaction(
+                                    diagramGraph, batch, i, total, progress,
+                                    updater));
                 }
             }
         };
     }
 
-    private IDesktopUpdate busyStart(final int total) {
-        return new IDesktopUpdate() {
-            @Override
-            public void doUpdate() {
-                Clients.showBusy(_("Doing {0} reassignations", total), true);
-            }
-        };
-    }
+    /**
+     * It shows how many reassignations have been done and lets the user cancel
+     * the rest. Its components are only touched from desktop updates
+     */
+    private static class ProgressWindow {
 
-    private IDesktopUpdate showCompleted(final int number, final int total) {
-        return new IDesktopUpdate() {
+        private final Desktop desktop;
 
-            @Override
-            public void doUpdate() {
-                Clients.showBusy(_("Done {0} of {1}", number, total), true);
-            }
-        };
+        private volatile boolean cancelled = false;
+
+        private Window window;
+
+        private Label doneLabel;
+
+        private Button cancelButton;
+
+        ProgressWindow(Desktop desktop) {
+            this.desktop = desktop;
+        }
+
+        boolean isCancelled() {
+            return cancelled;
+        }
+
+        IDesktopUpdate open(final IContext<TaskElement> context,
+                final int total) {
+            return new IDesktopUpdate() {
+
+                @Override
+                public void doUpdate() {
+                    window = new Window(_("Reassigning"), "normal", false);
+                    window.setWidth("300px");
+                    doneLabel = new Label(_("Doing {0} reassignations", total));
+                    cancelButton = new Button(_("Cancel"));
+                    cancelButton.addEventListener(Events.ON_CLICK,
+                            new EventListener() {
+
+                                @Override
+                                public void onEvent(Event event) {
+                                    cancel();
+                                }
+                            });
+                    Vbox vbox = new Vbox();
+                    vbox.appendChild(doneLabel);
+                    vbox.appendChild(cancelButton);
+                    window.appendChild(vbox);
+                    window.setPage(context.getRelativeTo().getPage());
+                    window.doHighlighted();
+                }
+            };
+        }
+
+        private void cancel() {
+            cancelled = true;
+            cancelButton.setDisabled(true);
+            doneLabel.setValue(_("Cancelling"));
+            LongOperationFeedback.cancelProgressive(desktop);
+        }
+
+        IDesktopUpdate showCompleted(final int number, final int total) {
+            return new IDesktopUpdate() {
+
+                @Override
+                public void doUpdate() {
+                    if (!cancelled) {
+                        doneLabel.setValue(_("Done {0} of {1}", number, total));
+                    }
+                }
+            };
+        }
+
+        IDesktopUpdate close() {
+            return new IDesktopUpdate() {
+
+                @Override
+                public void doUpdate() {
+                    if (window != null) {
+                        window.detach();
+                    }
+                }
+            };
+        }
     }
 
     private IDesktopUpdate reloadCharts(final IContext<?> context) {
@@ -221,16 +299,6 @@ public class ReassignCommand implements IReassignCommand {
         };
     }
 
-    private IDesktopUpdate busyEnd() {
-        return new IDesktopUpdate() {
-
-            @Override
-            public void doUpdate() {
-                Clients.showBusy(null, false);
-            }
-        };
-    }
-
     private IDesktopUpdate tellUserOnEnd(final IContext<TaskElement> context,
             String icon, final Callable<String> message) {
         // using callable so the message is built inside a zk execution and the
@@ -310,22 +378,45 @@ public class ReassignCommand implements IReassignCommand {
         return result;
     }
 
+    /**
+     * The reassignations are done in the same order than before, each one
+     * followed by the enforcement of the restrictions of its task, but
+     * several of them share the transaction. So the resources are reattached
+     * once for all of them instead of once for each task.
+     */
     private IOnTransaction<Void> reassignmentTransaction(
-            final WithAssociatedEntity withAssociatedEntity) {
+            final GanttDiagramGraph<Task, Dependency> diagramGraph,
+            final List<WithAssociatedEntity> batch, final int alreadyDone,
+            final int total, final ProgressWindow progress,
+            final IDesktopUpdatesEmitter<IDesktopUpdate> updater) {
         return new IOnTransaction<Void>() {
 
             @Override
             public Void execute() {
-                reattach(withAssociatedEntity);
-                reassign(withAssociatedEntity.domainEntity);
+                planningState.reassociateResourcesWithSession();
+                Set<Long> idsOfTypesAlreadyAttached = new HashSet<Long>();
+                int i = alreadyDone;
+                for (WithAssociatedEntity each : batch) {
+                    Task ganttTask = each.ganntTask;
+                    GanttDate previousStart = ganttTask.getBeginDate();
+                    GanttDate previousEnd = ganttTask.getEndDate();
+
+                    reattach(each, idsOfTypesAlreadyAttached);
+                    reassign(each.domainEntity);
+                    diagramGraph.enforceRestrictions(ganttTask);
+                    ganttTask.enforceDependenciesDueToPositionPotentiallyModified();
+                    ganttTask.updateSizeDueToDateChanges(previousStart, previousEnd);
+
+                    i++;
+                    updater.doUpdate(progress.showCompleted(i, total));
+                }
                 return null;
             }
         };
     }
 
-    private void reattach(WithAssociatedEntity each) {
-        planningState.reassociateResourcesWithSession();
-        Set<Long> idsOfTypesAlreadyAttached = new HashSet<Long>();
+    private void reattach(WithAssociatedEntity each,
+            Set<Long> idsOfTypesAlreadyAttached) {
         taskElementDAO.reattach(each.domainEntity);
         Set<ResourceAllocation<?>> resourceAllocations = each.domainEntity
                 .getSatisfiedResourceAllocations();
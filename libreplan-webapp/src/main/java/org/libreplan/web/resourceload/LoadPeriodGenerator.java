@@ -126,70 +126,34 @@ abstract class LoadPeriodGenerator {
                 .getSatisfied(allocationsOnInterval);
     }
 
-    public List<LoadPeriodGenerator> join(LoadPeriodGenerator next) {
-        if (!overlaps(next)) {
-            return stripEmpty(this, next);
-        }
-        if (isIncluded(next)) {
-            return stripEmpty(this.until(next.start), intersect(next), this
-                    .from(next.end));
-        }
-        assert overlaps(next) && !isIncluded(next);
-        return stripEmpty(this.until(next.start), intersect(next), next
-                .from(end));
-    }
-
     protected List<ResourceAllocation<?>> getAllocationsOnInterval() {
         return allocationsOnInterval;
     }
 
-    private List<LoadPeriodGenerator> stripEmpty(
-            LoadPeriodGenerator... generators) {
-        List<LoadPeriodGenerator> result = new ArrayList<LoadPeriodGenerator>();
-        for (LoadPeriodGenerator loadPeriodGenerator : generators) {
-            if (!loadPeriodGenerator.isEmpty()) {
-                result.add(loadPeriodGenerator);
-            }
-        }
-        return result;
-    }
-
-    private boolean isEmpty() {
-        return start.equals(end);
-    }
-
     protected abstract LoadPeriodGenerator create(IntraDayDate start,
             IntraDayDate end, List<ResourceAllocation<?>> allocationsOnInterval);
 
-    private LoadPeriodGenerator intersect(LoadPeriodGenerator other) {
-        return create(max(this.start, other.start),
-                min(this.end, other.end), plusAllocations(other));
-    }
-
-    private List<ResourceAllocation<?>> plusAllocations(
-            LoadPeriodGenerator other) {
-        List<ResourceAllocation<?>> result = new ArrayList<ResourceAllocation<?>>();
-        result.addAll(allocationsOnInterval);
-        result.addAll(other.allocationsOnInterval);
-        return result;
-    }
-
-    private LoadPeriodGenerator from(IntraDayDate newStart) {
-        return create(newStart, end, allocationsOnInterval);
-    }
-
-    private LoadPeriodGenerator until(IntraDayDate newEnd) {
-        return create(start, newEnd, allocationsOnInterval);
-    }
-
-    boolean overlaps(LoadPeriodGenerator other) {
-        return (start.compareTo(other.end) < 0 && other.start
-                .compareTo(this.end) < 0);
-    }
-
-    private boolean isIncluded(LoadPeriodGenerator other) {
-        return other.start.compareTo(start) >= 0
-                && other.end.compareTo(end) <= 0;
+    /**
+     * @return a generator restricted to the interval provided or
+     *         <code>null</code> if it doesn't overlap it. Any of the limits can
+     *         be <code>null</code>
+     */
+    LoadPeriodGenerator clippedTo(IntraDayDate windowStart,
+            IntraDayDate windowEnd) {
+        if (start.compareTo(end) > 0) {
+            // the inconsistency is reported when building it
+            return this;
+        }
+        IntraDayDate newStart = windowStart != null ? max(start, windowStart)
+                : start;
+        IntraDayDate newEnd = windowEnd != null ? min(end, windowEnd) : end;
+        if (newStart.compareTo(newEnd) >= 0) {
+            return null;
+        }
+        if (newStart.equals(start) && newEnd.equals(end)) {
+            return this;
+        }
+        return create(newStart, newEnd, allocationsOnInterval);
     }
 
     /**
@@ -40,8 +40,6 @@ import org.libreplan.business.common.IOnTransaction;
 import org.libreplan.business.common.daos.IConfigurationDAO;
 import org.libreplan.business.orders.entities.Order;
 import org.libreplan.business.planner.chart.ILoadChartData;
-import org.libreplan.business.planner.chart.ResourceLoadChartData;
-import org.libreplan.business.planner.entities.DayAssignment;
 import org.libreplan.business.planner.entities.TaskElement;
 import org.libreplan.business.resources.daos.IResourcesSearcher;
 import org.libreplan.business.resources.entities.Criterion;
@@ -1041,8 +1039,6 @@ public class ResourceLoadController implements Composer {
 
         private final ResourceLoadDisplayData generatedData;
 
-        private List<Resource> resources;
-
         public ResourceLoadChartFiller(ResourceLoadDisplayData generatedData) {
             this.generatedData = generatedData;
         }
@@ -1054,14 +1050,13 @@ public class ResourceLoadController implements Composer {
 
         @Override
         protected ILoadChartData getDataOn(Interval interval) {
-            List<DayAssignment> assignments = generatedData
-                    .getDayAssignmentsConsidered();
-            return new ResourceLoadChartData(assignments,
-                    resources, interval.getStart(), interval.getFinish());
+            return generatedData.getLoadChartDataOn(interval.getStart(),
+                    interval.getFinish());
         }
 
         private void initializeResources() {
-            resources = generatedData.getResourcesConsidered();
+            // they're cached, so later zoom changes don't need to load them
+            generatedData.getResourcesConsidered();
         }
 
 
@@ -6,6 +6,9 @@ import java.util.concurrent.Callable;
 import org.apache.commons.lang.Validate;
 import org.joda.time.LocalDate;
 import org.libreplan.business.common.BaseEntity;
+import org.libreplan.business.planner.chart.ILoadChartData;
+import org.libreplan.business.planner.chart.ResourceLoadChartData;
+import org.libreplan.business.planner.chart.ResourceLoadCube;
 import org.libreplan.business.planner.entities.DayAssignment;
 import org.libreplan.business.resources.entities.Resource;
 import org.libreplan.web.resourceload.ResourceLoadParameters.Paginator;
@@ -61,11 +64,28 @@ public class ResourceLoadDisplayData {
 
     private final LocalDate filterEnd;
 
+    private final ResourceLoadCube sharedLoad;
+
     public ResourceLoadDisplayData(List<LoadTimeLine> timeLines,
             LocalDate filterStart, LocalDate filterEnd,
             Paginator<? extends BaseEntity> paginator,
             Callable<List<Resource>> resourcesConsidered,
             Callable<List<DayAssignment>> assignmentsConsidered) {
+        this(timeLines, filterStart, filterEnd, paginator,
+                resourcesConsidered, assignmentsConsidered, null);
+    }
+
+    /**
+     * @param sharedLoad
+     *            if not <code>null</code> the load chart is sliced from it
+     *            instead of being calculated from the assignments considered
+     */
+    public ResourceLoadDisplayData(List<LoadTimeLine> timeLines,
+            LocalDate filterStart, LocalDate filterEnd,
+            Paginator<? extends BaseEntity> paginator,
+            Callable<List<Resource>> resourcesConsidered,
+            Callable<List<DayAssignment>> assignmentsConsidered,
+            ResourceLoadCube sharedLoad) {
         Validate.notNull(timeLines);
         Validate.notNull(paginator);
         Validate.notNull(resourcesConsidered);
@@ -77,6 +97,7 @@ public class ResourceLoadDisplayData {
         this.paginator = paginator;
         this.resourcesConsidered = cached(resourcesConsidered);
         this.assignmentsConsidered = cached(assignmentsConsidered);
+        this.sharedLoad = sharedLoad;
     }
 
     private static Interval getViewIntervalFrom(List<LoadTimeLine> timeLines) {
@@ -110,6 +131,16 @@ public class ResourceLoadDisplayData {
         return resolve(assignmentsConsidered);
     }
 
+    public ILoadChartData getLoadChartDataOn(LocalDate startInclusive,
+            LocalDate endExclusive) {
+        if (sharedLoad != null) {
+            return sharedLoad.sliceFor(getResourcesConsidered(),
+                    startInclusive, endExclusive);
+        }
+        return new ResourceLoadChartData(getDayAssignmentsConsidered(),
+                getResourcesConsidered(), startInclusive, endExclusive);
+    }
+
     public LocalDate getFilterStart() {
         return filterStart;
     }
@@ -28,17 +28,18 @@ import static org.libreplan.web.planner.order.PlanningStateCreator.and;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.LinkedHashMap;
 import java.util.LinkedHashSet;
-import java.util.LinkedList;
 import java.util.List;
-import java.util.ListIterator;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Set;
+import java.util.SortedSet;
+import java.util.TreeSet;
 import java.util.concurrent.Callable;
 
 import org.joda.time.LocalDate;
@@ -47,9 +48,11 @@ import org.libreplan.business.calendars.entities.ResourceCalendar;
 import org.libreplan.business.common.BaseEntity;
 import org.libreplan.business.common.IAdHocTransactionService;
 import org.libreplan.business.common.exceptions.InstanceNotFoundException;
+import org.libreplan.business.hibernate.notification.PredefinedDatabaseSnapshots;
 import org.libreplan.business.orders.daos.IOrderDAO;
 import org.libreplan.business.orders.entities.Order;
 import org.libreplan.business.orders.entities.OrderElement;
+import org.libreplan.business.planner.chart.ResourceLoadCube;
 import org.libreplan.business.planner.daos.IResourceAllocationDAO;
 import org.libreplan.business.planner.entities.DayAssignment;
 import org.libreplan.business.planner.entities.GenericResourceAllocation;
@@ -64,12 +67,10 @@ import org.libreplan.business.resources.entities.Criterion;
 import org.libreplan.business.resources.entities.Resource;
 import org.libreplan.business.scenarios.IScenarioManager;
 import org.libreplan.business.scenarios.entities.Scenario;
-import org.libreplan.business.users.daos.IOrderAuthorizationDAO;
 import org.libreplan.business.users.daos.IUserDAO;
-import org.libreplan.business.users.entities.OrderAuthorization;
-import org.libreplan.business.users.entities.OrderAuthorizationType;
 import org.libreplan.business.users.entities.User;
 import org.libreplan.business.users.entities.UserRole;
+import org.libreplan.business.workingday.IntraDayDate;
 import org.libreplan.web.calendars.BaseCalendarModel;
 import org.libreplan.web.planner.order.PlanningStateCreator.IAllocationCriteria;
 import org.libreplan.web.planner.order.PlanningStateCreator.PlanningState;
@@ -85,7 +86,6 @@ import org.springframework.beans.factory.config.BeanDefinition;
 import org.springframework.context.annotation.Scope;
 import org.springframework.stereotype.Component;
 import org.springframework.transaction.annotation.Transactional;
-import org.zkoss.ganttz.data.GanttDate;
 import org.zkoss.ganttz.data.resourceload.LoadPeriod;
 import org.zkoss.ganttz.data.resourceload.LoadTimeLine;
 import org.zkoss.ganttz.data.resourceload.TimeLineRole;
@@ -112,9 +112,6 @@ public class ResourceLoadModel implements IResourceLoadModel {
     @Autowired
     private IUserDAO userDAO;
 
-    @Autowired
-    private IOrderAuthorizationDAO orderAuthorizationDAO;
-
     @Autowired
     private IScenarioManager scenarioManager;
 
@@ -124,6 +121,13 @@ public class ResourceLoadModel implements IResourceLoadModel {
     @Autowired
     private IAdHocTransactionService transactionService;
 
+    @Autowired
+    private PredefinedDatabaseSnapshots databaseSnapshots;
+
+    private String readableOrdersLoginName;
+
+    private Set<Long> readableOrdersIds;
+
     @Override
     @Transactional(readOnly = true)
     public ResourceLoadDisplayData calculateDataToDisplay(
@@ -134,13 +138,30 @@ public class ResourceLoadModel implements IResourceLoadModel {
             planningState.reattach();
             planningState.reassociateResourcesWithSession();
         }
+        forgetReadableOrders();
         ResourceAllocationsFinder<?> allocationsFinder = create(parameters);
         List<LoadTimeLine> loadTimeLines = allocationsFinder.buildTimeLines();
         return new ResourceLoadDisplayData(loadTimeLines,
                 parameters.getInitDateFilter(),
                 parameters.getEndDateFilter(), allocationsFinder.getPaginator(),
                 allocationsFinder.lazilyGetResourcesIncluded(),
-                allocationsFinder.lazilyGetAssignmentsShown());
+                allocationsFinder.lazilyGetAssignmentsShown(),
+                getSharedLoad(parameters));
+    }
+
+    /**
+     * The shared load is calculated for the stored data of the main scenario
+     * and it's only used when grouping by resource. A planning state could
+     * have modifications not saved yet. While the shared load is recalculated
+     * after a save, the chart is calculated like the timelines.
+     */
+    private ResourceLoadCube getSharedLoad(ResourceLoadParameters parameters) {
+        if (parameters.getPlanningState() != null
+                || !parameters.isFilterByResources()
+                || !scenarioManager.getCurrent().isMaster()) {
+            return null;
+        }
+        return databaseSnapshots.snapshotUpToDateResourceLoadCube();
     }
 
 
@@ -162,14 +183,8 @@ public class ResourceLoadModel implements IResourceLoadModel {
             return true;
         }
         try {
-            User user = userDAO.findByLoginName(loginName);
-            for (OrderAuthorization authorization : orderAuthorizationDAO
-                    .listByOrderUserAndItsProfiles(order, user)) {
-                if (authorization.getAuthorizationType() == OrderAuthorizationType.READ_AUTHORIZATION
-                        || authorization.getAuthorizationType() == OrderAuthorizationType.WRITE_AUTHORIZATION) {
-                    return true;
-                }
-            }
+            Set<Long> ids = getReadableOrdersIds(loginName);
+            return ids == null || ids.contains(order.getId());
         } catch (InstanceNotFoundException e) {
             // this case shouldn't happen, because it would mean that there
             // isn't a logged user
@@ -178,6 +193,21 @@ public class ResourceLoadModel implements IResourceLoadModel {
         return false;
     }
 
+    private Set<Long> getReadableOrdersIds(String loginName)
+            throws InstanceNotFoundException {
+        if (!loginName.equals(readableOrdersLoginName)) {
+            User user = userDAO.findByLoginName(loginName);
+            readableOrdersIds = orderDAO.getOrdersIdsByReadAuthorization(user);
+            readableOrdersLoginName = loginName;
+        }
+        return readableOrdersIds;
+    }
+
+    private void forgetReadableOrders() {
+        readableOrdersLoginName = null;
+        readableOrdersIds = null;
+    }
+
     public ResourceAllocationsFinder<?> create(ResourceLoadParameters parameters) {
         return parameters.isFilterByResources() ? new ByResourceFinder(
                 parameters) : new ByCriterionFinder(parameters);
@@ -1018,17 +1048,24 @@ public class ResourceLoadModel implements IResourceLoadModel {
 
     private Map<Order, List<ResourceAllocation<?>>> byOrder(
             Collection<? extends ResourceAllocation<?>> allocations) {
-        Map<Order, List<ResourceAllocation<?>>> result = new HashMap<Order, List<ResourceAllocation<?>>>();
+        List<ResourceAllocation<?>> withTask = new ArrayList<ResourceAllocation<?>>();
+        List<OrderElement> orderElements = new ArrayList<OrderElement>();
         for (ResourceAllocation<?> resourceAllocation : allocations) {
             if ((resourceAllocation.isSatisfied())
                     && (resourceAllocation.getTask() != null)) {
-                OrderElement orderElement = resourceAllocation.getTask()
-                        .getOrderElement();
-                Order order = orderDAO.loadOrderAvoidingProxyFor(orderElement);
-                initializeIfNeeded(result, order);
-                result.get(order).add(resourceAllocation);
+                withTask.add(resourceAllocation);
+                orderElements.add(resourceAllocation.getTask()
+                        .getOrderElement());
             }
         }
+        List<Order> orders = orderDAO
+                .loadOrdersAvoidingProxyFor(orderElements);
+        Map<Order, List<ResourceAllocation<?>>> result = new HashMap<Order, List<ResourceAllocation<?>>>();
+        for (int i = 0; i < withTask.size(); i++) {
+            Order order = orders.get(i);
+            initializeIfNeeded(result, order);
+            result.get(order).add(withTask.get(i));
+        }
         return result;
     }
 
@@ -1111,8 +1148,6 @@ class PeriodsBuilder {
 
     private final List<? extends ResourceAllocation<?>> sortedByStartDate;
 
-    private final List<LoadPeriodGenerator> loadPeriodsGenerators = new LinkedList<LoadPeriodGenerator>();
-
     private final LoadPeriodGeneratorFactory factory;
 
     private PeriodsBuilder(LoadPeriodGeneratorFactory factory,
@@ -1126,50 +1161,63 @@ class PeriodsBuilder {
         return new PeriodsBuilder(factory, sortedByStartDate).buildPeriods();
     }
 
+    /**
+     * Only the allocations overlapping the interval are taken into account
+     * and the periods are computed only for the part inside it, so the
+     * allocations far away from the shown interval are not expanded.
+     */
     public static List<LoadPeriod> build(LoadPeriodGeneratorFactory factory,
             List<? extends ResourceAllocation<?>> sortedByStartDate,
             Date startDateFilter, Date endDateFilter) {
-        List<LoadPeriod> list = new PeriodsBuilder(factory, sortedByStartDate).buildPeriods();
-        List<LoadPeriod> toReturn = new ArrayList<LoadPeriod>();
-        for (LoadPeriod loadPeriod : list) {
-
-            final GanttDate finalStartDate;
-            if (startDateFilter != null) {
-                finalStartDate = GanttDate.max(GanttDate
-                        .createFrom(new LocalDate(startDateFilter.getTime())),
-                        loadPeriod.getStart());
-            } else {
-                finalStartDate = loadPeriod.getStart();
-            }
+        IntraDayDate windowStart = toIntraDay(startDateFilter);
+        IntraDayDate windowEnd = toIntraDay(endDateFilter);
+        return new PeriodsBuilder(factory, onWindow(sortedByStartDate,
+                windowStart, windowEnd)).buildPeriods(windowStart, windowEnd);
+    }
 
-            final GanttDate finalEndDate;
-            if (endDateFilter != null) {
-                finalEndDate = GanttDate.min(loadPeriod.getEnd(), GanttDate
-                        .createFrom(new LocalDate(endDateFilter.getTime())));
-            } else {
-                finalEndDate = loadPeriod.getEnd();
-            }
-            if (finalStartDate.compareTo(finalEndDate) < 0) {
-                toReturn.add(new LoadPeriod(finalStartDate, finalEndDate,
-                        loadPeriod.getAvailableEffort(),
-                        loadPeriod.getAssignedEffort(), loadPeriod.getLoadLevel()));
+    private static IntraDayDate toIntraDay(Date date) {
+        if (date == null) {
+            return null;
+        }
+        return IntraDayDate.startOfDay(new LocalDate(date.getTime()));
+    }
+
+    private static List<? extends ResourceAllocation<?>> onWindow(
+            List<? extends ResourceAllocation<?>> sortedByStartDate,
+            IntraDayDate windowStart, IntraDayDate windowEnd) {
+        List<ResourceAllocation<?>> result = new ArrayList<ResourceAllocation<?>>();
+        for (ResourceAllocation<?> each : sortedByStartDate) {
+            boolean startsAfter = windowEnd != null
+                    && each.getIntraDayStartDate().compareTo(windowEnd) >= 0;
+            boolean endsBefore = windowStart != null
+                    && each.getIntraDayEndDate().compareTo(windowStart) <= 0;
+            if (!startsAfter && !endsBefore) {
+                result.add(each);
             }
         }
-        return toReturn;
+        return result;
     }
 
     private List<LoadPeriod> buildPeriods() {
-        for (ResourceAllocation<?> resourceAllocation : sortedByStartDate) {
-            loadPeriodsGenerators.add(factory.create(resourceAllocation));
-        }
-        joinPeriodGenerators();
-        return toGenerators(loadPeriodsGenerators);
+        return buildPeriods(null, null);
+    }
+
+    private List<LoadPeriod> buildPeriods(IntraDayDate windowStart,
+            IntraDayDate windowEnd) {
+        return toGenerators(sweep(), windowStart, windowEnd);
     }
 
-    private List<LoadPeriod> toGenerators(List<LoadPeriodGenerator> generators) {
+    private List<LoadPeriod> toGenerators(
+            List<LoadPeriodGenerator> generators, IntraDayDate windowStart,
+            IntraDayDate windowEnd) {
         List<LoadPeriod> result = new ArrayList<LoadPeriod>();
-        for (LoadPeriodGenerator loadPeriodGenerator : generators) {
-            LoadPeriod period = loadPeriodGenerator.build();
+        for (LoadPeriodGenerator each : generators) {
+            LoadPeriodGenerator clipped = each.clippedTo(windowStart,
+                    windowEnd);
+            if (clipped == null) {
+                continue;
+            }
+            LoadPeriod period = clipped.build();
             if (period != null) {
                 result.add(period);
             }
@@ -1177,105 +1225,79 @@ class PeriodsBuilder {
         return result;
     }
 
-    private void joinPeriodGenerators() {
-        ListIterator<LoadPeriodGenerator> iterator = loadPeriodsGenerators
-                .listIterator();
-        while (iterator.hasNext()) {
-            final LoadPeriodGenerator current = findNextOneOverlapping(iterator);
-            if (current != null) {
-                rewind(iterator, current);
-                iterator.remove();
-                LoadPeriodGenerator next = iterator.next();
-                iterator.remove();
-                List<LoadPeriodGenerator> generated = current.join(next);
-                final LoadPeriodGenerator positionToComeBack = generated.get(0);
-                final List<LoadPeriodGenerator> remaining = loadPeriodsGenerators
-                        .subList(iterator.nextIndex(), loadPeriodsGenerators
-                                .size());
-                List<LoadPeriodGenerator> generatorsSortedByStartDate = mergeListsKeepingByStartSortOrder(
-                        generated, remaining);
-                final int takenFromRemaining = generatorsSortedByStartDate
-                        .size()
-                        - generated.size();
-                removeNextElements(iterator, takenFromRemaining);
-                addAtCurrentPosition(iterator, generatorsSortedByStartDate);
-                rewind(iterator, positionToComeBack);
+    /**
+     * Sweeps the start and end dates of the allocations in order. A generator
+     * is created for each interval between two consecutive dates with the
+     * allocations active on it, so each allocation is only added and removed
+     * once.
+     */
+    private List<LoadPeriodGenerator> sweep() {
+        List<LoadPeriodGenerator> result = new ArrayList<LoadPeriodGenerator>();
+        List<ResourceAllocation<?>> byStart = new ArrayList<ResourceAllocation<?>>();
+        SortedSet<IntraDayDate> dates = new TreeSet<IntraDayDate>();
+        for (ResourceAllocation<?> each : sortedByStartDate) {
+            if (each.getIntraDayStartDate().compareTo(
+                    each.getIntraDayEndDate()) > 0) {
+                // it will be reported and ignored when building it
+                result.add(factory.create(each));
+                continue;
             }
-        }
-    }
-
-    private LoadPeriodGenerator findNextOneOverlapping(
-            ListIterator<LoadPeriodGenerator> iterator) {
-        while (iterator.hasNext()) {
-            LoadPeriodGenerator current = iterator.next();
-            if (!iterator.hasNext()) {
-                return null;
+            byStart.add(each);
+            dates.add(each.getIntraDayStartDate());
+            dates.add(each.getIntraDayEndDate());
+        }
+        Collections.sort(byStart, byStartDate());
+        List<ResourceAllocation<?>> byEnd = new ArrayList<ResourceAllocation<?>>(
+                byStart);
+        Collections.sort(byEnd, byEndDate());
+
+        Set<ResourceAllocation<?>> active = new LinkedHashSet<ResourceAllocation<?>>();
+        int nextToStart = 0;
+        int nextToEnd = 0;
+        IntraDayDate previous = null;
+        for (IntraDayDate each : dates) {
+            if (previous != null && !active.isEmpty()) {
+                ResourceAllocation<?> first = active.iterator().next();
+                result.add(factory.create(first).create(previous, each,
+                        new ArrayList<ResourceAllocation<?>>(active)));
+            }
+            while (nextToStart < byStart.size()
+                    && byStart.get(nextToStart).getIntraDayStartDate()
+                            .compareTo(each) <= 0) {
+                active.add(byStart.get(nextToStart++));
             }
-            LoadPeriodGenerator next = peekNext(iterator);
-            if (current.overlaps(next)) {
-                return current;
+            while (nextToEnd < byEnd.size()
+                    && byEnd.get(nextToEnd).getIntraDayEndDate()
+                            .compareTo(each) <= 0) {
+                active.remove(byEnd.get(nextToEnd++));
             }
+            previous = each;
         }
-        return null;
+        return result;
     }
 
-    private void addAtCurrentPosition(
-            ListIterator<LoadPeriodGenerator> iterator,
-            List<LoadPeriodGenerator> sortedByStartDate) {
-        for (LoadPeriodGenerator l : sortedByStartDate) {
-            iterator.add(l);
-        }
-    }
+    private static Comparator<ResourceAllocation<?>> byStartDate() {
+        return new Comparator<ResourceAllocation<?>>() {
 
-    private void removeNextElements(ListIterator<LoadPeriodGenerator> iterator,
-            final int elementsNumber) {
-        for (int i = 0; i < elementsNumber; i++) {
-            iterator.next();
-            iterator.remove();
-        }
+            @Override
+            public int compare(ResourceAllocation<?> o1,
+                    ResourceAllocation<?> o2) {
+                return o1.getIntraDayStartDate().compareTo(
+                        o2.getIntraDayStartDate());
+            }
+        };
     }
 
-    private void rewind(ListIterator<LoadPeriodGenerator> iterator,
-            LoadPeriodGenerator nextOne) {
-        while (peekNext(iterator) != nextOne) {
-            iterator.previous();
-        }
-    }
+    private static Comparator<ResourceAllocation<?>> byEndDate() {
+        return new Comparator<ResourceAllocation<?>>() {
 
-    private List<LoadPeriodGenerator> mergeListsKeepingByStartSortOrder(
-            List<LoadPeriodGenerator> joined,
-            List<LoadPeriodGenerator> remaining) {
-        List<LoadPeriodGenerator> result = new ArrayList<LoadPeriodGenerator>();
-        ListIterator<LoadPeriodGenerator> joinedIterator = joined
-                .listIterator();
-        ListIterator<LoadPeriodGenerator> remainingIterator = remaining
-                .listIterator();
-        while (joinedIterator.hasNext() && remainingIterator.hasNext()) {
-            LoadPeriodGenerator fromJoined = peekNext(joinedIterator);
-            LoadPeriodGenerator fromRemaining = peekNext(remainingIterator);
-            if (fromJoined.getStart().compareTo(fromRemaining.getStart()) <= 0) {
-                result.add(fromJoined);
-                joinedIterator.next();
-            } else {
-                result.add(fromRemaining);
-                remainingIterator.next();
+            @Override
+            public int compare(ResourceAllocation<?> o1,
+                    ResourceAllocation<?> o2) {
+                return o1.getIntraDayEndDate().compareTo(
+                        o2.getIntraDayEndDate());
             }
-        }
-        if (joinedIterator.hasNext()) {
-            result.addAll(joined.subList(joinedIterator.nextIndex(), joined
-                    .size()));
-        }
-        return result;
-    }
-
-    private LoadPeriodGenerator peekNext(
-            ListIterator<LoadPeriodGenerator> iterator) {
-        if (!iterator.hasNext()) {
-            return null;
-        }
-        LoadPeriodGenerator result = iterator.next();
-        iterator.previous();
-        return result;
+        };
     }
 
 }
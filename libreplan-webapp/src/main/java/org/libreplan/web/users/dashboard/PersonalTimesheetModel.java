@@ -26,6 +26,7 @@ import java.util.HashMap;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.Map.Entry;
 import java.util.Set;
 
 import org.hibernate.NonUniqueResultException;
@@ -39,6 +40,7 @@ import org.libreplan.business.common.exceptions.InstanceNotFoundException;
 import org.libreplan.business.costcategories.entities.TypeOfWorkHours;
 import org.libreplan.business.orders.daos.IOrderDAO;
 import org.libreplan.business.orders.daos.ISumChargedEffortDAO;
+import org.libreplan.business.orders.entities.ISumChargedEffortRecalculator;
 import org.libreplan.business.orders.entities.Order;
 import org.libreplan.business.orders.entities.OrderElement;
 import org.libreplan.business.planner.daos.IResourceAllocationDAO;
@@ -89,6 +91,15 @@ public class PersonalTimesheetModel implements IPersonalTimesheetModel {
 
     private WorkReport workReport;
 
+    /**
+     * Lines of {@link #workReport} by order element id and day
+     */
+    private Map<Long, Map<LocalDate, WorkReportLine>> workReportLinesMap;
+
+    private Map<Long, EffortDuration> effortPerOrderElement;
+
+    private Map<LocalDate, EffortDuration> effortPerDay;
+
     private Map<LocalDate, EffortDuration> capacityMap;
 
     private boolean modified;
@@ -120,6 +131,9 @@ public class PersonalTimesheetModel implements IPersonalTimesheetModel {
     @Autowired
     private ISumChargedEffortDAO sumChargedEffortDAO;
 
+    @Autowired
+    private ISumChargedEffortRecalculator sumChargedEffortRecalculator;
+
     @Autowired
     private IConfigurationDAO configurationDAO;
 
@@ -256,15 +270,60 @@ public class PersonalTimesheetModel implements IPersonalTimesheetModel {
             orderElements.add(orderElement);
         }
 
+        workReportLinesMap = new HashMap<Long, Map<LocalDate, WorkReportLine>>();
+        effortPerOrderElement = new HashMap<Long, EffortDuration>();
+        effortPerDay = new HashMap<LocalDate, EffortDuration>();
+
         for (WorkReportLine each : workReport.getWorkReportLines()) {
             OrderElement orderElement = each.getOrderElement();
             if (isNotInOrderElements(orderElement)) {
                 forceLoad(orderElement);
                 orderElements.add(orderElement);
             }
+            putWorkReportLine(each);
+            increaseEffort(each, each.getEffort());
+        }
+    }
+
+    private void putWorkReportLine(WorkReportLine line) {
+        Long orderElementId = line.getOrderElement().getId();
+        Map<LocalDate, WorkReportLine> byDay = workReportLinesMap
+                .get(orderElementId);
+        if (byDay == null) {
+            byDay = new HashMap<LocalDate, WorkReportLine>();
+            workReportLinesMap.put(orderElementId, byDay);
+        }
+        byDay.put(LocalDate.fromDateFields(line.getDate()), line);
+    }
+
+    private void removeWorkReportLine(WorkReportLine line) {
+        Map<LocalDate, WorkReportLine> byDay = workReportLinesMap.get(line
+                .getOrderElement().getId());
+        if (byDay != null) {
+            byDay.remove(LocalDate.fromDateFields(line.getDate()));
         }
     }
 
+    private void increaseEffort(WorkReportLine line, EffortDuration effort) {
+        Long orderElementId = line.getOrderElement().getId();
+        LocalDate date = LocalDate.fromDateFields(line.getDate());
+
+        initMapKey(effortPerOrderElement, orderElementId);
+        increaseMap(effortPerOrderElement, orderElementId, effort);
+
+        initMapKey(effortPerDay, date);
+        increaseMap(effortPerDay, date, effort);
+    }
+
+    private void decreaseEffort(WorkReportLine line, EffortDuration effort) {
+        Long orderElementId = line.getOrderElement().getId();
+        LocalDate date = LocalDate.fromDateFields(line.getDate());
+
+        effortPerOrderElement.put(orderElementId,
+                effortPerOrderElement.get(orderElementId).minus(effort));
+        effortPerDay.put(date, effortPerDay.get(date).minus(effort));
+    }
+
     private boolean isNotInOrderElements(OrderElement orderElement) {
         return !Util.contains(orderElements, orderElement);
     }
@@ -352,12 +411,13 @@ public class PersonalTimesheetModel implements IPersonalTimesheetModel {
     @Override
     @Transactional(readOnly = true)
     public List<OrderElement> getOrderElements() {
+        final Map<OrderElement, Order> orders = getOrders(orderElements);
         Collections.sort(orderElements, new Comparator<OrderElement>() {
 
             @Override
             public int compare(OrderElement o1, OrderElement o2) {
-                Order order1 = getOrder(o1);
-                Order order2 = getOrder(o2);
+                Order order1 = orders.get(o1);
+                Order order2 = orders.get(o2);
 
                 int compareOrderName = order1.getName().compareTo(
                         order2.getName());
@@ -370,6 +430,16 @@ public class PersonalTimesheetModel implements IPersonalTimesheetModel {
         return orderElements;
     }
 
+    private Map<OrderElement, Order> getOrders(
+            List<OrderElement> orderElements) {
+        List<Order> orders = orderDAO.loadOrdersAvoidingProxyFor(orderElements);
+        Map<OrderElement, Order> result = new HashMap<OrderElement, Order>();
+        for (int i = 0; i < orderElements.size(); i++) {
+            result.put(orderElements.get(i), orders.get(i));
+        }
+        return result;
+    }
+
     @Override
     public EffortDuration getEffortDuration(OrderElement orderElement,
             LocalDate date) {
@@ -382,14 +452,9 @@ public class PersonalTimesheetModel implements IPersonalTimesheetModel {
 
     private WorkReportLine getWorkReportLine(OrderElement orderElement,
             LocalDate date) {
-        for (WorkReportLine line : workReport.getWorkReportLines()) {
-            if (line.getOrderElement().getId().equals(orderElement.getId())
-                    && LocalDate.fromDateFields(line.getDate()).equals(date)) {
-                return line;
-            }
-        }
-
-        return null;
+        Map<LocalDate, WorkReportLine> byDay = workReportLinesMap
+                .get(orderElement.getId());
+        return byDay == null ? null : byDay.get(date);
     }
 
     @Override
@@ -398,7 +463,9 @@ public class PersonalTimesheetModel implements IPersonalTimesheetModel {
             EffortDuration effortDuration) {
         WorkReportLine workReportLine = getOrCreateWorkReportLine(orderElement,
                 date);
+        decreaseEffort(workReportLine, workReportLine.getEffort());
         workReportLine.setEffort(effortDuration);
+        increaseEffort(workReportLine, effortDuration);
         modified = true;
         markAsModified(orderElement, date);
     }
@@ -409,6 +476,8 @@ public class PersonalTimesheetModel implements IPersonalTimesheetModel {
         if (workReportLine == null) {
             workReportLine = createWorkReportLine(orderElement, date);
             workReport.addWorkReportLine(workReportLine);
+            putWorkReportLine(workReportLine);
+            increaseEffort(workReportLine, workReportLine.getEffort());
         }
         return workReportLine;
     }
@@ -447,20 +516,21 @@ public class PersonalTimesheetModel implements IPersonalTimesheetModel {
             // WorkReportDAO.getPersonalTimesheetWorkReport() method.
         } else {
             Set<WorkReportLine> deletedWorkReportLinesSet = removeWorkReportLinesWithEffortZero();
+            // Only the modified lines can change the charged effort
+            Set<WorkReportLine> modifiedWorkReportLinesSet = getModifiedWorkReportLines();
 
             Set<OrderElement> orderElements = sumChargedEffortDAO
                     .getOrderElementsToRecalculateTimsheetDates(
-                            workReport.getWorkReportLines(),
+                            modifiedWorkReportLinesSet,
                             deletedWorkReportLinesSet);
             sumChargedEffortDAO
                     .updateRelatedSumChargedEffortWithDeletedWorkReportLineSet(deletedWorkReportLinesSet);
             sumChargedEffortDAO
-                    .updateRelatedSumChargedEffortWithWorkReportLineSet(workReport
-                            .getWorkReportLines());
+                    .updateRelatedSumChargedEffortWithWorkReportLineSet(modifiedWorkReportLinesSet);
             workReport.generateWorkReportLineCodes(entitySequenceDAO
                     .getNumberOfDigitsCode(EntityNameEnum.WORK_REPORT));
             workReportDAO.save(workReport);
-            sumChargedEffortDAO.recalculateTimesheetData(orderElements);
+            sumChargedEffortRecalculator.recalculateTimesheetData(orderElements);
 
             if (workReport.getWorkReportLines().isEmpty()) {
                 try {
@@ -483,10 +553,25 @@ public class PersonalTimesheetModel implements IPersonalTimesheetModel {
         }
         for (WorkReportLine line : toRemove) {
             workReport.removeWorkReportLine(line);
+            removeWorkReportLine(line);
         }
         return toRemove;
     }
 
+    private Set<WorkReportLine> getModifiedWorkReportLines() {
+        Set<WorkReportLine> result = new HashSet<WorkReportLine>();
+        for (Entry<OrderElement, Set<LocalDate>> entry : modifiedMap
+                .entrySet()) {
+            for (LocalDate date : entry.getValue()) {
+                WorkReportLine line = getWorkReportLine(entry.getKey(), date);
+                if (line != null) {
+                    result.add(line);
+                }
+            }
+        }
+        return result;
+    }
+
     private void resetModifiedFields() {
         modified = false;
         modifiedMap = new HashMap<OrderElement, Set<LocalDate>>();
@@ -498,29 +583,22 @@ public class PersonalTimesheetModel implements IPersonalTimesheetModel {
         date = null;
         orderElements = null;
         workReport = null;
+        workReportLinesMap = null;
+        effortPerOrderElement = null;
+        effortPerDay = null;
         resetModifiedFields();
     }
 
     @Override
     public EffortDuration getEffortDuration(OrderElement orderElement) {
-        EffortDuration result = EffortDuration.zero();
-        for (WorkReportLine line : workReport.getWorkReportLines()) {
-            if (line.getOrderElement().equals(orderElement)) {
-                result = result.plus(line.getEffort());
-            }
-        }
-        return result;
+        EffortDuration effort = effortPerOrderElement.get(orderElement.getId());
+        return effort == null ? EffortDuration.zero() : effort;
     }
 
     @Override
     public EffortDuration getEffortDuration(LocalDate date) {
-        EffortDuration result = EffortDuration.zero();
-        for (WorkReportLine line : workReport.getWorkReportLines()) {
-            if (LocalDate.fromDateFields(line.getDate()).equals(date)) {
-                result = result.plus(line.getEffort());
-            }
-        }
-        return result;
+        EffortDuration effort = effortPerDay.get(date);
+        return effort == null ? EffortDuration.zero() : effort;
     }
 
     @Override
@@ -19,6 +19,8 @@
 
 package org.libreplan.importers;
 
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 import static org.libreplan.business.BusinessGlobalNames.BUSINESS_SPRING_CONFIG_FILE;
 import static org.libreplan.web.WebappGlobalNames.WEBAPP_SPRING_CONFIG_FILE;
@@ -26,8 +28,20 @@ import static org.libreplan.web.WebappGlobalNames.WEBAPP_SPRING_SECURITY_CONFIG_
 import static org.libreplan.web.test.WebappGlobalNames.WEBAPP_SPRING_CONFIG_TEST_FILE;
 import static org.libreplan.web.test.WebappGlobalNames.WEBAPP_SPRING_SECURITY_CONFIG_TEST_FILE;
 
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
 import javax.annotation.Resource;
 
+import org.apache.commons.io.IOUtils;
+import org.joda.time.LocalDate;
 import org.junit.Before;
 import org.junit.Ignore;
 import org.junit.Test;
@@ -35,13 +49,23 @@ import org.junit.runner.RunWith;
 import org.libreplan.business.IDataBootstrap;
 import org.libreplan.business.common.IAdHocTransactionService;
 import org.libreplan.business.common.IOnTransaction;
+import org.libreplan.business.common.daos.IConnectorDAO;
+import org.libreplan.business.common.entities.Connector;
 import org.libreplan.business.common.entities.ConnectorException;
+import org.libreplan.business.common.entities.ConnectorProperty;
+import org.libreplan.business.common.entities.IConnectorBootstrap;
+import org.libreplan.business.common.entities.PredefinedConnectorProperties;
+import org.libreplan.business.common.entities.PredefinedConnectors;
 import org.libreplan.web.calendars.IBaseCalendarModel;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Qualifier;
 import org.springframework.test.context.ContextConfiguration;
 import org.springframework.test.context.junit4.SpringJUnit4ClassRunner;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
 /**
  * Test for {@link ImportRosterFromTim}
  *
@@ -69,6 +93,12 @@ public class ImportRosterFromTimTest {
     @Autowired
     private IImportRosterFromTim importRosterFromTim;
 
+    @Autowired
+    private IConnectorBootstrap connectorBootstrap;
+
+    @Autowired
+    private IConnectorDAO connectorDAO;
+
     @Autowired
     @Qualifier("subclass")
     private IBaseCalendarModel baseCalendarModel;
@@ -97,4 +127,105 @@ public class ImportRosterFromTimTest {
         assertTrue(baseCalendarModel.getCalendarExceptionType() != null);
     }
 
+    @Test
+    public void testImportRostersRequestsConsecutivePeriods()
+            throws IOException, ConnectorException {
+        List<String> periods = Collections
+                .synchronizedList(new ArrayList<String>());
+        HttpServer server = givenTimStubRecordingPeriods(periods);
+        try {
+            givenTimConnector("http://localhost:"
+                    + server.getAddress().getPort() + "/", "65");
+            importRosterFromTim.importRosters();
+        } finally {
+            server.stop(0);
+            givenTimConnector("", "90");
+        }
+        LocalDate today = new LocalDate();
+        assertThat(periods, equalTo(Arrays.asList(
+                period(today, today.plusDays(29)),
+                period(today.plusDays(30), today.plusDays(59)),
+                period(today.plusDays(60), today.plusDays(65)))));
+    }
+
+    private void givenTimConnector(final String url,
+            final String nrDaysRoster) {
+        transactionService.runOnAnotherTransaction(new IOnTransaction<Void>() {
+
+            @Override
+            public Void execute() {
+                connectorBootstrap.loadRequiredData();
+                Connector connector = connectorDAO
+                        .findUniqueByName(PredefinedConnectors.TIM.getName());
+                for (ConnectorProperty each : connector.getProperties()) {
+                    if (each.getKey().equals(
+                            PredefinedConnectorProperties.SERVER_URL)) {
+                        each.setValue(url);
+                    } else if (each.getKey().equals(
+                            PredefinedConnectorProperties.USERNAME)
+                            || each.getKey().equals(
+                                    PredefinedConnectorProperties.PASSWORD)) {
+                        each.setValue(url.isEmpty() ? "" : "test");
+                    } else if (each.getKey().equals(
+                            PredefinedConnectorProperties.TIM_NR_DAYS_ROSTER)) {
+                        each.setValue(nrDaysRoster);
+                    }
+                }
+                connectorDAO.save(connector);
+                return null;
+            }
+        });
+    }
+
+    private static String period(LocalDate start, LocalDate end) {
+        return start.toString("dd-MM-yyyy") + "/" + end.toString("dd-MM-yyyy");
+    }
+
+    /**
+     * Starts a local server answering the roster requests with a roster
+     * without absences, and recording the period asked in each of them
+     */
+    private HttpServer givenTimStubRecordingPeriods(final List<String> periods)
+            throws IOException {
+        final Pattern startDate = Pattern.compile("startdate=\"([^\"]*)\"");
+        final Pattern endDate = Pattern.compile("enddate=\"([^\"]*)\"");
+        HttpServer server = HttpServer.create(new InetSocketAddress(
+                "localhost", 0), 0);
+        server.createContext("/", new HttpHandler() {
+
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                InputStream requestBody = exchange.getRequestBody();
+                String request = IOUtils.toString(requestBody, "UTF-8");
+                Matcher start = startDate.matcher(request);
+                Matcher end = endDate.matcher(request);
+                if (start.find() && end.find()) {
+                    periods.add(start.group(1) + "/" + end.group(1));
+                }
+                respond(exchange, "<?xml version=\"1.0\"?>"
+                        + "<SOAP-ENV:Envelope xmlns:SOAP-ENV="
+                        + "\"http://schemas.xmlsoap.org/soap/envelope/\">"
+                        + "<SOAP-ENV:Body>"
+                        + "<ns1:exportResponse xmlns:ns1=\"impexp.timn.aenova.nl\">"
+                        + "<return><bezettingblok>"
+                        + "<aanwezigheid>Aanwezig</aanwezigheid>"
+                        + "</bezettingblok></return>"
+                        + "</ns1:exportResponse>"
+                        + "</SOAP-ENV:Body></SOAP-ENV:Envelope>");
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    private static void respond(HttpExchange exchange, String xml)
+            throws IOException {
+        byte[] body = xml.getBytes("UTF-8");
+        exchange.getResponseHeaders().set("Content-Type",
+                "text/xml; charset=utf-8");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
+
 }
@@ -19,11 +19,14 @@
 
 package org.libreplan.importers;
 
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.junit.Assert.assertThat;
 import static org.junit.Assert.assertTrue;
 
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Properties;
@@ -36,6 +39,10 @@ import org.junit.Ignore;
 import org.junit.Test;
 import org.libreplan.importers.jira.IssueDTO;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
 /**
  * Test for {@link JiraRESTClient }
  *
@@ -102,4 +109,80 @@ public class JiraRESTClientTest {
                 "");
         assertTrue(issues.size() > 0);
     }
+
+    @Test
+    public void testGetIssuesFollowsThePagesOfTheSearch() throws IOException {
+        HttpServer server = givenJiraStubWithIssues(5, 2);
+        try {
+            List<IssueDTO> issues = JiraRESTClient.getIssues("http://localhost:"
+                    + server.getAddress().getPort() + "/", "username",
+                    "password", JiraRESTClient.PATH_SEARCH,
+                    getJiraLabel("label"));
+            assertThat(issues.size(), equalTo(5));
+            assertThat(issues.get(4).getKey(), equalTo("ISSUE-4"));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    /**
+     * Starts a local server answering the searches with <code>total</code>
+     * issues, at most <code>pageSize</code> of them each time
+     */
+    private HttpServer givenJiraStubWithIssues(final int total,
+            final int pageSize) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress(
+                "localhost", 0), 0);
+        server.createContext("/" + JiraRESTClient.PATH_AUTH_SESSION,
+                new HttpHandler() {
+
+                    @Override
+                    public void handle(HttpExchange exchange)
+                            throws IOException {
+                        respond(exchange, "{}");
+                    }
+                });
+        server.createContext("/" + JiraRESTClient.PATH_SEARCH,
+                new HttpHandler() {
+
+                    @Override
+                    public void handle(HttpExchange exchange)
+                            throws IOException {
+                        int startAt = getStartAt(exchange.getRequestURI()
+                                .getQuery());
+                        StringBuilder issues = new StringBuilder();
+                        for (int i = startAt; i < Math.min(total, startAt
+                                + pageSize); i++) {
+                            if (issues.length() > 0) {
+                                issues.append(",");
+                            }
+                            issues.append("{\"key\":\"ISSUE-" + i + "\"}");
+                        }
+                        respond(exchange, "{\"startAt\":" + startAt
+                                + ",\"maxResults\":" + pageSize
+                                + ",\"total\":" + total + ",\"issues\":["
+                                + issues + "]}");
+                    }
+                });
+        server.start();
+        return server;
+    }
+
+    private static int getStartAt(String query) {
+        for (String each : StringUtils.split(query, "&")) {
+            if (each.startsWith("startAt=")) {
+                return Integer.parseInt(each.substring("startAt=".length()));
+            }
+        }
+        return 0;
+    }
+
+    private static void respond(HttpExchange exchange, String json)
+            throws IOException {
+        byte[] body = json.getBytes("UTF-8");
+        exchange.getResponseHeaders().set("Content-Type", "application/json");
+        exchange.sendResponseHeaders(200, body.length);
+        exchange.getResponseBody().write(body);
+        exchange.close();
+    }
 }
@@ -0,0 +1,256 @@
+/*
+ * This file is part of LibrePlan
+ *
+ * Copyright (C) 2013 Igalia, S.L.
+ *
+ * This program is free software: you can redistribute it and/or modify
+ * it under the terms of the GNU Affero General Public License as published by
+ * the Free Software Foundation, either version 3 of the License, or
+ * (at your option) any later version.
+ *
+ * This program is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE.  See the
+ * GNU Affero General Public License for more details.
+ *
+ * You should have received a copy of the GNU Affero General Public License
+ * along with this program.  If not, see <http://www.gnu.org/licenses/>.
+ */
+
+
+package org.libreplan.web.users.dashboard;
+
+import static org.easymock.EasyMock.anyObject;
+import static org.easymock.EasyMock.expect;
+import static org.easymock.EasyMock.expectLastCall;
+import static org.easymock.EasyMock.getCurrentArguments;
+import static org.easymock.classextension.EasyMock.createNiceMock;
+import static org.easymock.classextension.EasyMock.replay;
+import static org.hamcrest.CoreMatchers.equalTo;
+import static org.hamcrest.CoreMatchers.nullValue;
+import static org.junit.Assert.assertThat;
+import static org.libreplan.business.workingday.EffortDuration.hours;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+import org.easymock.IAnswer;
+import org.joda.time.LocalDate;
+import org.junit.Before;
+import org.junit.Test;
+import org.libreplan.business.common.daos.IConfigurationDAO;
+import org.libreplan.business.common.daos.IEntitySequenceDAO;
+import org.libreplan.business.common.entities.Configuration;
+import org.libreplan.business.common.entities.EntityNameEnum;
+import org.libreplan.business.orders.daos.ISumChargedEffortDAO;
+import org.libreplan.business.orders.entities.ISumChargedEffortRecalculator;
+import org.libreplan.business.orders.entities.OrderElement;
+import org.libreplan.business.planner.daos.IResourceAllocationDAO;
+import org.libreplan.business.planner.entities.SpecificResourceAllocation;
+import org.libreplan.business.resources.entities.Resource;
+import org.libreplan.business.scenarios.entities.Scenario;
+import org.libreplan.business.users.entities.User;
+import org.libreplan.business.workingday.EffortDuration;
+import org.libreplan.business.workreports.daos.IWorkReportDAO;
+import org.libreplan.business.workreports.entities.WorkReport;
+import org.libreplan.business.workreports.entities.WorkReportLine;
+import org.springframework.test.util.ReflectionTestUtils;
+
+/**
+ * Tests for the indexes of the cells and totals kept by
+ * {@link PersonalTimesheetModel}
+ */
+public class PersonalTimesheetModelTest {
+
+    private static final LocalDate DAY = new LocalDate(2013, 6, 3);
+
+    private static final LocalDate NEXT_DAY = DAY.plusDays(1);
+
+    private PersonalTimesheetModel model;
+
+    private WorkReport workReport;
+
+    private OrderElement orderElement;
+
+    private OrderElement otherOrderElement;
+
+    private Set<WorkReportLine> deletedLines;
+
+    private Set<WorkReportLine> modifiedLines;
+
+    @Before
+    public void givenModelWithExistingLines() {
+        orderElement = givenOrderElement(1L);
+        otherOrderElement = givenOrderElement(2L);
+
+        workReport = WorkReport.create();
+        workReport.setCode("WR");
+        givenLine(orderElement, DAY, hours(3));
+        givenLine(otherOrderElement, DAY, hours(2));
+        givenLine(orderElement, NEXT_DAY, hours(1));
+
+        model = new PersonalTimesheetModel();
+        ReflectionTestUtils.setField(model, "user",
+                givenNiceMock(User.class));
+        ReflectionTestUtils.setField(model, "firstDay", DAY);
+        ReflectionTestUtils.setField(model, "lastDay", DAY.plusDays(6));
+        ReflectionTestUtils.setField(model, "workReport", workReport);
+        ReflectionTestUtils.setField(model, "resourceAllocationDAO",
+                givenResourceAllocationDAOWithoutAllocations());
+        ReflectionTestUtils.setField(model, "configurationDAO",
+                givenConfigurationDAO());
+        ReflectionTestUtils.setField(model, "entitySequenceDAO",
+                givenEntitySequenceDAO());
+        ReflectionTestUtils.setField(model, "sumChargedEffortDAO",
+                givenSumChargedEffortDAORecordingLines());
+        ReflectionTestUtils.setField(model, "sumChargedEffortRecalculator",
+                givenNiceMock(ISumChargedEffortRecalculator.class));
+        ReflectionTestUtils.setField(model, "workReportDAO",
+                givenNiceMock(IWorkReportDAO.class));
+        ReflectionTestUtils.invokeMethod(model, "initOrderElements");
+        ReflectionTestUtils.invokeMethod(model, "resetModifiedFields");
+    }
+
+    private <T> T givenNiceMock(Class<T> klass) {
+        T result = createNiceMock(klass);
+        replay(result);
+        return result;
+    }
+
+    private OrderElement givenOrderElement(Long id) {
+        OrderElement result = createNiceMock(OrderElement.class);
+        expect(result.getId()).andReturn(id).anyTimes();
+        replay(result);
+        return result;
+    }
+
+    private void givenLine(OrderElement orderElement, LocalDate day,
+            EffortDuration effort) {
+        WorkReportLine line = WorkReportLine.create(workReport);
+        line.setOrderElement(orderElement);
+        line.setDate(day.toDateTimeAtStartOfDay().toDate());
+        line.setEffort(effort);
+        workReport.addWorkReportLine(line);
+    }
+
+    @SuppressWarnings("unchecked")
+    private IResourceAllocationDAO givenResourceAllocationDAOWithoutAllocations() {
+        IResourceAllocationDAO result = createNiceMock(IResourceAllocationDAO.class);
+        expect(
+                result.findSpecificAllocationsRelatedTo((Scenario) anyObject(),
+                        (List<Resource>) anyObject(), (LocalDate) anyObject(),
+                        (LocalDate) anyObject())).andReturn(
+                new ArrayList<SpecificResourceAllocation>()).anyTimes();
+        replay(result);
+        return result;
+    }
+
+    private IConfigurationDAO givenConfigurationDAO() {
+        Configuration configuration = createNiceMock(Configuration.class);
+        replay(configuration);
+        IConfigurationDAO result = createNiceMock(IConfigurationDAO.class);
+        expect(result.getConfiguration()).andReturn(configuration)
+                .anyTimes();
+        replay(result);
+        return result;
+    }
+
+    private IEntitySequenceDAO givenEntitySequenceDAO() {
+        IEntitySequenceDAO result = createNiceMock(IEntitySequenceDAO.class);
+        expect(result.getNumberOfDigitsCode(EntityNameEnum.WORK_REPORT))
+                .andReturn(5).anyTimes();
+        replay(result);
+        return result;
+    }
+
+    @SuppressWarnings("unchecked")
+    private ISumChargedEffortDAO givenSumChargedEffortDAORecordingLines() {
+        ISumChargedEffortDAO result = createNiceMock(ISumChargedEffortDAO.class);
+        expect(
+                result.getOrderElementsToRecalculateTimsheetDates(
+                        (Set<WorkReportLine>) anyObject(),
+                        (Set<WorkReportLine>) anyObject())).andReturn(
+                Collections.<OrderElement> emptySet()).anyTimes();
+        result.updateRelatedSumChargedEffortWithDeletedWorkReportLineSet((Set<WorkReportLine>) anyObject());
+        expectLastCall().andAnswer(new IAnswer<Object>() {
+
+            @Override
+            public Object answer() throws Throwable {
+                deletedLines = (Set<WorkReportLine>) getCurrentArguments()[0];
+                return null;
+            }
+        }).anyTimes();
+        result.updateRelatedSumChargedEffortWithWorkReportLineSet((Set<WorkReportLine>) anyObject());
+        expectLastCall().andAnswer(new IAnswer<Object>() {
+
+            @Override
+            public Object answer() throws Throwable {
+                modifiedLines = (Set<WorkReportLine>) getCurrentArguments()[0];
+                return null;
+            }
+        }).anyTimes();
+        replay(result);
+        return result;
+    }
+
+    @Test
+    public void theCellsAndTotalsAreIndexedFromTheExistingLines() {
+        assertThat(model.getEffortDuration(orderElement, DAY),
+                equalTo(hours(3)));
+        assertThat(model.getEffortDuration(otherOrderElement, NEXT_DAY),
+                nullValue());
+        assertThat(model.getEffortDuration(orderElement), equalTo(hours(4)));
+        assertThat(model.getEffortDuration(otherOrderElement),
+                equalTo(hours(2)));
+        assertThat(model.getEffortDuration(DAY), equalTo(hours(5)));
+        assertThat(model.getEffortDuration(NEXT_DAY), equalTo(hours(1)));
+        assertThat(model.getEffortDuration(DAY.plusDays(2)),
+                equalTo(EffortDuration.zero()));
+    }
+
+    @Test
+    public void changingACellUpdatesItsTotals() {
+        model.setEffortDuration(orderElement, DAY, hours(5));
+
+        assertThat(model.getEffortDuration(orderElement, DAY),
+                equalTo(hours(5)));
+        assertThat(model.getEffortDuration(orderElement), equalTo(hours(6)));
+        assertThat(model.getEffortDuration(DAY), equalTo(hours(7)));
+        assertThat(model.getTotalEffortDuration(), equalTo(hours(8)));
+    }
+
+    @Test
+    public void fillingAnEmptyCellCreatesItsLineAndUpdatesItsTotals() {
+        model.setEffortDuration(otherOrderElement, NEXT_DAY, hours(4));
+
+        assertThat(model.getEffortDuration(otherOrderElement, NEXT_DAY),
+                equalTo(hours(4)));
+        assertThat(model.getEffortDuration(otherOrderElement),
+                equalTo(hours(6)));
+        assertThat(model.getEffortDuration(NEXT_DAY), equalTo(hours(5)));
+        assertThat(workReport.getWorkReportLines().size(), equalTo(4));
+        assertThat(model.getTotalEffortDuration(), equalTo(hours(10)));
+    }
+
+    @Test
+    public void savingSendsOnlyTheModifiedLinesAndRemovesTheEmptiedOnes() {
+        model.setEffortDuration(orderElement, DAY, hours(5));
+        model.setEffortDuration(orderElement, NEXT_DAY, EffortDuration.zero());
+
+        model.save();
+
+        assertThat(modifiedLines.size(), equalTo(1));
+        WorkReportLine modified = modifiedLines.iterator().next();
+        assertThat(modified.getEffort(), equalTo(hours(5)));
+        assertThat(deletedLines.size(), equalTo(1));
+        assertThat(deletedLines.iterator().next().getOrderElement(),
+                equalTo(orderElement));
+        assertThat(model.getEffortDuration(orderElement, NEXT_DAY),
+                nullValue());
+        assertThat(model.getEffortDuration(orderElement), equalTo(hours(5)));
+        assertThat(workReport.getWorkReportLines().size(), equalTo(2));
+    }
+
+}